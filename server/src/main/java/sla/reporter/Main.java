@@ -4,10 +4,25 @@ import io.netty.channel.Channel;
 import org.glassfish.jersey.jackson.JacksonFeature;
 import org.glassfish.jersey.netty.httpserver.NettyHttpContainerProvider;
 import org.glassfish.jersey.server.ResourceConfig;
+import sla.reporter.api.audience.AudienceResource;
 import sla.reporter.api.health.HealthResource;
+import sla.reporter.api.sla.SlaFilter;
+import sla.reporter.api.sla.SlaResource;
+import sla.reporter.api.snapshot.SnapshotResource;
 import sla.reporter.api.subscription.SubscriptionResource;
+import sla.reporter.api.timeline.TimelineResource;
+import sla.reporter.api.validation.ValidationExceptionMapper;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.database.nosql.JsonFileManager;
+import sla.reporter.monitoring.SlaEvaluator;
+import sla.reporter.monitoring.SloDefinition;
 
 import javax.ws.rs.core.Application;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.util.HashSet;
 import java.util.Set;
@@ -19,13 +34,68 @@ import java.util.Set;
  */
 public class Main {
 
+    /**
+     * The argument restoring a snapshot archive into the empty storage before starting, e.g.
+     * {@code --restore=storage-1600000000.zip}.
+     */
+    private static final String RESTORE_ARGUMENT = "--restore=";
+
     /**
      * Method called from the operating system.
      */
     public static void main(final String[] args) {
+        for (final String arg : args) {
+            if (arg.startsWith(RESTORE_ARGUMENT)) {
+                restoreStorage(arg.substring(RESTORE_ARGUMENT.length()));
+            }
+        }
+        registerServiceLevelObjectives();
+        JsonFileManager.INSTANCE.deleteStagedSnapshots();
+        indexStorage();
         startRestfulServer();
     }
 
+    /**
+     * Restores a snapshot archive into the empty storage.
+     *
+     * @param archive The path of the archive.
+     */
+    private static void restoreStorage(final String archive) {
+        try (final InputStream input = new FileInputStream(archive)) {
+            JsonFileManager.INSTANCE.restore(input);
+        } catch (final IOException e) {
+            throw new UncheckedIOException("Failed restoring snapshot: " + archive, e);
+        }
+    }
+
+    /**
+     * Indexes the subscribers already stored.
+     */
+    private static void indexStorage() {
+        JsonFileManager.INSTANCE.forEachStored(subscriber -> {
+            AudienceIndex.INSTANCE.add(subscriber);
+            TimeBucketIndex.INSTANCE.add(subscriber);
+        });
+    }
+
+    /**
+     * Registers the objectives evaluated by the <i>/api/sla</i> endpoint.
+     */
+    private static void registerServiceLevelObjectives() {
+        SlaEvaluator.INSTANCE.register(new SloDefinition.Builder()
+                .endpoint("POST /api/subscription")
+                .latencyThresholdMillis(200)
+                .latencyObjective(0.99)
+                .availabilityObjective(0.999)
+                .build());
+        SlaEvaluator.INSTANCE.register(new SloDefinition.Builder()
+                .endpoint("GET /api/subscription/{email}")
+                .latencyThresholdMillis(50)
+                .latencyObjective(0.99)
+                .availabilityObjective(0.999)
+                .build());
+    }
+
     /**
      * Starts the server.
      */
@@ -36,6 +106,12 @@ public class Main {
                     final Set<Object> set = new HashSet<>();
                     set.add(new HealthResource());
                     set.add(new SubscriptionResource());
+                    set.add(new SlaResource());
+                    set.add(new AudienceResource());
+                    set.add(new SnapshotResource());
+                    set.add(new TimelineResource());
+                    set.add(new SlaFilter());
+                    set.add(new ValidationExceptionMapper());
                     return set;
                 }
             }
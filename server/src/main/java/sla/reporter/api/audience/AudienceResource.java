@@ -0,0 +1,114 @@
+package sla.reporter.api.audience;
+
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.AudienceQuery;
+
+import javax.ws.rs.Consumes;
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.POST;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A class that provides audience segmentation endpoints, see {@link AudienceQuery} for the query syntax.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Path("/api/audience")
+public class AudienceResource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(AudienceResource.class);
+
+    /**
+     * Counts the subscribers matching the query from endpoint API.
+     *
+     * @param object The expected query.
+     * @return The response for corresponding request.
+     */
+    @POST
+    @Path("/count")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response count(final JSONObject object) {
+        final AudienceQuery query;
+        try {
+            query = AudienceQuery.parse(object);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.error("Invalid audience query: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(error(e)).build();
+        }
+        final long start = System.nanoTime();
+        final long count = AudienceIndex.INSTANCE.count(query);
+        final long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start);
+        LOGGER.info("Counted {} subscribers matching {} in {}us", count, object, micros);
+        final JSONObject result = new JSONObject();
+        result.put("count", count);
+        result.put("micros", micros);
+        return Response.status(Response.Status.OK).entity(result).build();
+    }
+
+    /**
+     * Streams the emails of the subscribers matching the query from endpoint API, one per line.
+     *
+     * @param limit The maximum number of emails.
+     * @param object The expected query.
+     * @return The response for corresponding request.
+     */
+    @POST
+    @Path("/members")
+    @Consumes(MediaType.APPLICATION_JSON)
+    @Produces(MediaType.TEXT_PLAIN)
+    public Response members(@QueryParam("limit") @DefaultValue("9223372036854775807") final long limit,
+                            final JSONObject object) {
+        final AudienceQuery query;
+        try {
+            query = AudienceQuery.parse(object);
+        } catch (final IllegalArgumentException e) {
+            LOGGER.error("Invalid audience query: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(e.getMessage()).build();
+        }
+        LOGGER.info("Streaming subscribers matching {}", object);
+        final StreamingOutput output = stream -> {
+            final Writer writer = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8));
+            AudienceIndex.INSTANCE.forEachMatch(query, limit, email -> {
+                try {
+                    writer.write(email);
+                    writer.write('\n');
+                } catch (final IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+            writer.flush();
+        };
+        return Response.status(Response.Status.OK).entity(output).build();
+    }
+
+    /**
+     * Creates the error entity of an invalid query.
+     *
+     * @param e The parsing error.
+     * @return The error entity.
+     */
+    private static JSONObject error(final IllegalArgumentException e) {
+        final JSONObject error = new JSONObject();
+        error.put("error", e.getMessage());
+        return error;
+    }
+}
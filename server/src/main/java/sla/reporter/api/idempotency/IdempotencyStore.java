@@ -0,0 +1,510 @@
+package sla.reporter.api.idempotency;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Bounded, time-expiring store of idempotency key to cached response.
+ *
+ * <p>Keys are spread over independently locked shards, each one an insertion-ordered map, so the oldest entries of a
+ * shard are both the first to expire and the first to be evicted once the shard is full.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class IdempotencyStore {
+
+    /**
+     * The request header holding the idempotency key.
+     */
+    public static final String HEADER = "Idempotency-Key";
+    /**
+     * The maximum length of an idempotency key.
+     */
+    public static final int MAX_KEY_LENGTH = 255;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(IdempotencyStore.class);
+
+    /**
+     * The algorithm of the payload fingerprints.
+     */
+    private static final String FINGERPRINT_ALGORITHM = "SHA-256";
+    /**
+     * The estimated heap cost of an entry besides its key: the map node, the entry, its 32 bytes fingerprint and
+     * its key string header.
+     *
+     * @implNote The cached entity is shared with the caller and the caches, so it is not accounted.
+     */
+    private static final long ENTRY_OVERHEAD_BYTES = 208;
+    /**
+     * The interval between two reports of the memory use in milliseconds.
+     */
+    static final long REPORT_INTERVAL_MILLIS = 60_000;
+
+    /**
+     * The shards.
+     */
+    private final Shard[] shards;
+    /**
+     * The maximum number of entries per shard.
+     */
+    private final int maxEntriesPerShard;
+    /**
+     * The time to live of an entry in milliseconds.
+     */
+    private final long ttlMillis;
+    /**
+     * The clock in milliseconds.
+     */
+    private final LongSupplier clock;
+    /**
+     * The number of entries, kept outside the shards so that reporting it takes no lock.
+     */
+    private final LongAdder count = new LongAdder();
+    /**
+     * The estimated memory used by the entries.
+     */
+    private final LongAdder bytes = new LongAdder();
+    /**
+     * The time of the next report of the memory use, in milliseconds.
+     */
+    private final AtomicLong nextReportAt = new AtomicLong(Long.MIN_VALUE);
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of entries.
+     * @param ttlMillis The time to live of an entry in milliseconds.
+     * @param shards The number of shards, rounded up to a power of two.
+     */
+    public IdempotencyStore(final int maxEntries, final long ttlMillis, final int shards) {
+        this(maxEntries, ttlMillis, shards, System::currentTimeMillis);
+    }
+
+    /**
+     * Constructor.
+     *
+     * @param maxEntries The maximum number of entries.
+     * @param ttlMillis The time to live of an entry in milliseconds.
+     * @param shards The number of shards, rounded up to a power of two.
+     * @param clock The clock in milliseconds.
+     */
+    IdempotencyStore(final int maxEntries, final long ttlMillis, final int shards, final LongSupplier clock) {
+        checkArgument(maxEntries > 0, "Max entries must be positive");
+        checkArgument(ttlMillis > 0, "Time to live must be positive");
+        checkArgument(shards > 0, "Shards must be positive");
+        int shardCount = 1;
+        while (shardCount < shards) {
+            shardCount <<= 1;
+        }
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shardCount; i++) {
+            this.shards[i] = new Shard();
+        }
+        this.maxEntriesPerShard = Math.max(1, maxEntries / shardCount);
+        this.ttlMillis = ttlMillis;
+        this.clock = clock;
+    }
+
+    /**
+     * Computes the fingerprint of a request payload: the SHA-256 digest of its canonical JSON form, where the keys of
+     * every object are sorted, so that two payloads match whatever the order their fields were sent in.
+     *
+     * @param payload The request payload, may be {@code null}.
+     * @return The fingerprint.
+     */
+    public static byte[] fingerprint(final Map<?, ?> payload) {
+        final StringBuilder canonical = new StringBuilder();
+        appendCanonical(canonical, payload);
+        try {
+            return MessageDigest.getInstance(FINGERPRINT_ALGORITHM)
+                    .digest(canonical.toString().getBytes(StandardCharsets.UTF_8));
+        } catch (final NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(FINGERPRINT_ALGORITHM + " is not supported", e);
+        }
+    }
+
+    /**
+     * Appends the canonical JSON form of a value.
+     *
+     * @param canonical The canonical form being built.
+     * @param value The value.
+     */
+    private static void appendCanonical(final StringBuilder canonical, final Object value) {
+        if (value instanceof Map) {
+            final Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, field) -> sorted.put(String.valueOf(key), field));
+            canonical.append('{');
+            boolean first = true;
+            for (final Map.Entry<String, Object> field : sorted.entrySet()) {
+                if (!first) {
+                    canonical.append(',');
+                }
+                first = false;
+                appendString(canonical, field.getKey());
+                canonical.append(':');
+                appendCanonical(canonical, field.getValue());
+            }
+            canonical.append('}');
+        } else if (value instanceof Collection) {
+            canonical.append('[');
+            boolean first = true;
+            for (final Object element : (Collection<?>) value) {
+                if (!first) {
+                    canonical.append(',');
+                }
+                first = false;
+                appendCanonical(canonical, element);
+            }
+            canonical.append(']');
+        } else if (value instanceof String) {
+            appendString(canonical, (String) value);
+        } else {
+            // numbers, booleans and null
+            canonical.append(value);
+        }
+    }
+
+    /**
+     * Appends a quoted string, escaping the quotes and backslashes so that the canonical form is unambiguous.
+     *
+     * @param canonical The canonical form being built.
+     * @param value The string.
+     */
+    private static void appendString(final StringBuilder canonical, final String value) {
+        canonical.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                canonical.append('\\');
+            }
+            canonical.append(c);
+        }
+        canonical.append('"');
+    }
+
+    /**
+     * Reserves the given key for a request, unless a live entry already holds it.
+     *
+     * @param key The idempotency key.
+     * @param fingerprint The {@link #fingerprint(Map) fingerprint} of the request payload.
+     * @return The reservation: either the new entry of the caller, who must then either
+     *     {@link #complete(String, Entry, int, Object) complete} or {@link #release(String, Entry) release} it, or the
+     *     live entry already holding the key.
+     */
+    public Reservation reserve(final String key, final byte[] fingerprint) {
+        final long now = this.clock.getAsLong();
+        report(now);
+        final Shard shard = shardOf(key);
+        synchronized (shard) {
+            shard.expire(now);
+            final Entry existing = shard.entries.get(key);
+            if (existing != null) {
+                return new Reservation(existing, false);
+            }
+            final Entry entry = new Entry(fingerprint, now + this.ttlMillis);
+            shard.put(key, entry, this.maxEntriesPerShard);
+            return new Reservation(entry, true);
+        }
+    }
+
+    /**
+     * Caches the response of a reserved key, unless its reservation was evicted or expired meanwhile.
+     *
+     * @param key The idempotency key.
+     * @param entry The entry of the {@link Reservation#isOwner() reservation}.
+     * @param status The response status code.
+     * @param entity The response entity.
+     */
+    public void complete(final String key, final Entry entry, final int status, final Object entity) {
+        final Shard shard = shardOf(key);
+        synchronized (shard) {
+            // the key may have been reserved again by another request
+            if (shard.entries.get(key) == entry) {
+                entry.complete(status, entity);
+            }
+        }
+    }
+
+    /**
+     * Releases a reserved key whose request didn't succeed, so that a retry is processed again.
+     *
+     * @param key The idempotency key.
+     * @param entry The entry of the {@link Reservation#isOwner() reservation}.
+     */
+    public void release(final String key, final Entry entry) {
+        final Shard shard = shardOf(key);
+        synchronized (shard) {
+            // the key may have been reserved again by another request
+            if (shard.entries.get(key) == entry && !entry.isCompleted()) {
+                shard.remove(key);
+            }
+        }
+    }
+
+    /**
+     * Gets the number of entries.
+     *
+     * @return The number of entries, including expired ones not yet purged.
+     */
+    public long size() {
+        return this.count.sum();
+    }
+
+    /**
+     * Gets the estimated memory used by the entries.
+     *
+     * @return The estimated number of heap bytes.
+     */
+    public long estimatedBytes() {
+        return this.bytes.sum();
+    }
+
+    /**
+     * Logs the number of entries and their estimated memory use, at most once per {@link #REPORT_INTERVAL_MILLIS}.
+     *
+     * @param now The current time in milliseconds.
+     */
+    private void report(final long now) {
+        final long reportAt = this.nextReportAt.get();
+        if (now >= reportAt && this.nextReportAt.compareAndSet(reportAt, now + REPORT_INTERVAL_MILLIS)) {
+            LOGGER.info("Idempotency store holds {} keys in ~{} bytes", size(), estimatedBytes());
+        }
+    }
+
+    /**
+     * Gets the shard of the given key.
+     *
+     * @param key The idempotency key.
+     * @return The shard.
+     */
+    private Shard shardOf(final String key) {
+        final int hash = key.hashCode();
+        return this.shards[(hash ^ (hash >>> 16)) & (this.shards.length - 1)];
+    }
+
+    /**
+     * Accounts an added entry.
+     *
+     * @param key The idempotency key.
+     */
+    private void added(final String key) {
+        this.count.increment();
+        this.bytes.add(ENTRY_OVERHEAD_BYTES + 2L * key.length());
+    }
+
+    /**
+     * Accounts a removed entry.
+     *
+     * @param key The idempotency key.
+     */
+    private void removed(final String key) {
+        this.count.decrement();
+        this.bytes.add(-(ENTRY_OVERHEAD_BYTES + 2L * key.length()));
+    }
+
+    /**
+     * The outcome of a {@link #reserve(String, byte[]) reservation}.
+     */
+    public static final class Reservation {
+
+        /**
+         * The entry holding the key.
+         */
+        private final Entry entry;
+        /**
+         * Whether the entry was created by the reservation.
+         */
+        private final boolean owner;
+
+        /**
+         * Constructor.
+         *
+         * @param entry The entry holding the key.
+         * @param owner Whether the entry was created by the reservation.
+         */
+        private Reservation(final Entry entry, final boolean owner) {
+            this.entry = entry;
+            this.owner = owner;
+        }
+
+        /**
+         * Gets the entry holding the key.
+         *
+         * @return The new entry of the caller if {@link #isOwner() owner}, the entry of an earlier request otherwise.
+         */
+        public Entry getEntry() {
+            return this.entry;
+        }
+
+        /**
+         * Checks whether the caller reserved the key.
+         *
+         * @return {@code true} if the key is now reserved by the caller, {@code false} if an earlier request holds it.
+         */
+        public boolean isOwner() {
+            return this.owner;
+        }
+    }
+
+    /**
+     * A cached response, or a reservation while the response is not known yet.
+     */
+    public static final class Entry {
+
+        /**
+         * The fingerprint of the request payload.
+         */
+        private final byte[] fingerprint;
+        /**
+         * The time the entry expires at, in milliseconds.
+         */
+        private final long expiresAt;
+        /**
+         * Whether the response is known.
+         */
+        private boolean completed;
+        /**
+         * The response status code.
+         */
+        private int status;
+        /**
+         * The response entity.
+         */
+        private Object entity;
+
+        /**
+         * Constructor.
+         *
+         * @param fingerprint The fingerprint of the request payload.
+         * @param expiresAt The time the entry expires at.
+         */
+        private Entry(final byte[] fingerprint, final long expiresAt) {
+            this.fingerprint = fingerprint;
+            this.expiresAt = expiresAt;
+        }
+
+        /**
+         * Sets the response.
+         *
+         * @param status The response status code.
+         * @param entity The response entity.
+         */
+        private synchronized void complete(final int status, final Object entity) {
+            this.status = status;
+            this.entity = entity;
+            this.completed = true;
+        }
+
+        /**
+         * Checks whether the entry was created for the given payload.
+         *
+         * @param fingerprint The fingerprint of the request payload.
+         * @return {@code true} if the payloads match, {@code false} otherwise.
+         */
+        public boolean matches(final byte[] fingerprint) {
+            return MessageDigest.isEqual(this.fingerprint, fingerprint);
+        }
+
+        /**
+         * Checks whether the response is known.
+         *
+         * @return {@code true} if the response is cached, {@code false} while the original request is in flight.
+         */
+        public synchronized boolean isCompleted() {
+            return this.completed;
+        }
+
+        /**
+         * Gets the response status code.
+         *
+         * @return The response status code.
+         */
+        public synchronized int getStatus() {
+            return this.status;
+        }
+
+        /**
+         * Gets the response entity.
+         *
+         * @return The response entity.
+         */
+        public synchronized Object getEntity() {
+            return this.entity;
+        }
+    }
+
+    /**
+     * A shard of the store.
+     */
+    private final class Shard {
+
+        /**
+         * The entries in insertion order.
+         */
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>();
+
+        /**
+         * Adds an entry, evicting the oldest one if the shard is full.
+         *
+         * @param key The idempotency key.
+         * @param entry The entry.
+         * @param maxEntries The maximum number of entries of the shard.
+         */
+        private void put(final String key, final Entry entry, final int maxEntries) {
+            this.entries.put(key, entry);
+            added(key);
+            if (this.entries.size() > maxEntries) {
+                final Iterator<String> eldest = this.entries.keySet().iterator();
+                removed(eldest.next());
+                eldest.remove();
+                LOGGER.debug("Evicted idempotency key, store holds {} keys in ~{} bytes", size(), estimatedBytes());
+            }
+        }
+
+        /**
+         * Removes an entry.
+         *
+         * @param key The idempotency key.
+         */
+        private void remove(final String key) {
+            if (this.entries.remove(key) != null) {
+                removed(key);
+            }
+        }
+
+        /**
+         * Purges the expired entries, which are the oldest ones.
+         *
+         * @param now The current time in milliseconds.
+         */
+        private void expire(final long now) {
+            final Iterator<Map.Entry<String, Entry>> iterator = this.entries.entrySet().iterator();
+            while (iterator.hasNext()) {
+                final Map.Entry<String, Entry> eldest = iterator.next();
+                if (eldest.getValue().expiresAt > now) {
+                    return;
+                }
+                removed(eldest.getKey());
+                iterator.remove();
+            }
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package sla.reporter.api.sla;
+
+import org.glassfish.jersey.server.ExtendedUriInfo;
+import org.glassfish.jersey.uri.UriTemplate;
+import sla.reporter.monitoring.SlaEvaluator;
+
+import javax.ws.rs.container.ContainerRequestContext;
+import javax.ws.rs.container.ContainerRequestFilter;
+import javax.ws.rs.container.ContainerResponseContext;
+import javax.ws.rs.container.ContainerResponseFilter;
+import javax.ws.rs.ext.Provider;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A filter that records the latency and the outcome of every matched request into the {@link SlaEvaluator}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Provider
+public class SlaFilter implements ContainerRequestFilter, ContainerResponseFilter {
+
+    /**
+     * The request property holding the start time in nanoseconds.
+     */
+    private static final String START_PROPERTY = SlaFilter.class.getName() + ".start";
+
+    @Override
+    public void filter(final ContainerRequestContext request) {
+        request.setProperty(START_PROPERTY, System.nanoTime());
+    }
+
+    @Override
+    public void filter(final ContainerRequestContext request, final ContainerResponseContext response) {
+        final Object start = request.getProperty(START_PROPERTY);
+        if (!(start instanceof Long)) {
+            // the request didn't match any resource
+            return;
+        }
+        final long latencyMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - (Long) start);
+        final boolean error = response.getStatus() >= 500;
+        SlaEvaluator.INSTANCE.record(endpoint(request), latencyMillis, error);
+    }
+
+    /**
+     * Gets the endpoint of the given request, formatted as {@code <METHOD> <path template>}.
+     *
+     * @param request The request.
+     * @return The endpoint.
+     */
+    private static String endpoint(final ContainerRequestContext request) {
+        final StringBuilder builder = new StringBuilder(request.getMethod()).append(' ');
+        if (request.getUriInfo() instanceof ExtendedUriInfo) {
+            // matched templates are ordered from the most specific one
+            final List<UriTemplate> templates = ((ExtendedUriInfo) request.getUriInfo()).getMatchedTemplates();
+            for (int i = templates.size() - 1; i >= 0; i--) {
+                final String template = templates.get(i).getTemplate();
+                // methods without a path of their own may match an empty or root template
+                if (!template.isEmpty() && !"/".equals(template)) {
+                    builder.append(template.startsWith("/") ? template : "/" + template);
+                }
+            }
+        } else {
+            builder.append('/').append(request.getUriInfo().getPath());
+        }
+        return builder.toString();
+    }
+}
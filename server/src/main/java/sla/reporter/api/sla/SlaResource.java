@@ -0,0 +1,40 @@
+package sla.reporter.api.sla;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.monitoring.SlaEvaluator;
+import sla.reporter.monitoring.SlaReport;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.util.List;
+
+/**
+ * A class that provides the service level agreement compliance endpoint.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Path("/api/sla")
+public class SlaResource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlaResource.class);
+
+    /**
+     * Gets the compliance of every endpoint with an objective.
+     *
+     * @return The response for corresponding request.
+     */
+    @GET
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCompliance() {
+        final List<SlaReport> reports = SlaEvaluator.INSTANCE.evaluate();
+        LOGGER.trace("evaluated {} objectives", reports.size());
+        return Response.status(Response.Status.OK).entity(reports).build();
+    }
+}
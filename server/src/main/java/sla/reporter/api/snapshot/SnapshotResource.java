@@ -0,0 +1,76 @@
+package sla.reporter.api.snapshot;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.database.nosql.JsonFileManager;
+import sla.reporter.database.nosql.StorageSnapshot;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import java.io.IOException;
+import java.time.Instant;
+
+/**
+ * A class that provides the backup endpoint, streaming a consistent snapshot of the storage while writes keep going.
+ *
+ * <p>The staged snapshot is deleted once streamed or if the response fails before streaming; snapshots left staged
+ * when the process stops are deleted at the next startup.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Path("/api/snapshot")
+public class SnapshotResource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SnapshotResource.class);
+
+    /**
+     * The media type of the snapshot archive.
+     */
+    private static final String APPLICATION_ZIP = "application/zip";
+
+    /**
+     * Gets a snapshot of the storage as a zip archive from endpoint API.
+     *
+     * @return The response for corresponding request.
+     */
+    @GET
+    @Produces(APPLICATION_ZIP)
+    public Response getSnapshot() {
+        final StorageSnapshot snapshot;
+        try {
+            snapshot = JsonFileManager.INSTANCE.snapshot();
+        } catch (final IOException e) {
+            LOGGER.error("Failed staging snapshot", e);
+            return Response.status(Response.Status.INTERNAL_SERVER_ERROR).build();
+        }
+        boolean handedOver = false;
+        try {
+            LOGGER.info("Streaming snapshot of {} subscribers", snapshot.size());
+            final StreamingOutput output = stream -> {
+                try {
+                    snapshot.writeZip(stream);
+                } finally {
+                    // also reached when the client aborts the download
+                    snapshot.close();
+                }
+            };
+            final String name = "storage-" + Instant.now().getEpochSecond() + ".zip";
+            final Response response = Response.status(Response.Status.OK)
+                    .header("Content-Disposition", "attachment; filename=\"" + name + "\"")
+                    .entity(output)
+                    .build();
+            handedOver = true;
+            return response;
+        } finally {
+            if (!handedOver) {
+                snapshot.close();
+            }
+        }
+    }
+}
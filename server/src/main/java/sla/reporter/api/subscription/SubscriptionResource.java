@@ -3,12 +3,16 @@ package sla.reporter.api.subscription;
 import org.json.simple.JSONObject;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sla.reporter.api.idempotency.IdempotencyStore;
 import sla.reporter.database.nosql.JsonFileManager;
 import sla.reporter.model.Subscriber;
+import sla.reporter.model.ValidationResult;
+import sla.reporter.monitoring.events.RequestEvent;
 
 import javax.ws.rs.Consumes;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.PUT;
 import javax.ws.rs.Path;
@@ -16,6 +20,9 @@ import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
 import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A class that provides subscription endpoint.
@@ -28,6 +35,19 @@ public class SubscriptionResource {
      */
     private static final Logger LOGGER = LoggerFactory.getLogger(SubscriptionResource.class);
 
+    /**
+     * The status code returned when an idempotency key is reused with another payload.
+     */
+    private static final int UNPROCESSABLE_ENTITY = 422;
+
+    /**
+     * The responses of the requests carrying an {@value IdempotencyStore#HEADER} header.
+     */
+    private final IdempotencyStore idempotency = new IdempotencyStore(
+            Integer.getInteger("sla.reporter.idempotency.entries", 100_000),
+            TimeUnit.SECONDS.toMillis(Long.getLong("sla.reporter.idempotency.ttl.seconds", 86_400L)),
+            Runtime.getRuntime().availableProcessors() * 4);
+
     /**
      * Gets the subscriber by given email from endpoint API.
      *
@@ -38,29 +58,94 @@ public class SubscriptionResource {
     @Path("/{email}")
     @Produces(MediaType.APPLICATION_JSON)
     public Response getSubscriber(@PathParam("email") String email) {
+        final RequestEvent event = new RequestEvent();
+        event.begin();
         final Subscriber subscriber;
         try {
             subscriber = JsonFileManager.INSTANCE.readObject(email);
             LOGGER.info("Got subscriber: {}", subscriber);
         } catch (final Exception ignored) {
             LOGGER.error("Failed getting subscriber with email: {}", email);
-            return Response.status(Response.Status.NOT_FOUND).build();
+            return commit(event, "GET", email, null, Response.status(Response.Status.NOT_FOUND).build());
         }
-        return Response.status(Response.Status.OK).entity(subscriber).build();
+        return commit(event, "GET", email, subscriber,
+                Response.status(Response.Status.OK).entity(subscriber).build());
     }
 
     /**
      * Adds a new subscriber from endpoint API.
      *
+     * <p>When the request carries an {@value IdempotencyStore#HEADER} header, the created response is cached under
+     * that key and a retry with the same key and payload gets the original response without reaching the storage.
+     *
+     * @param idempotencyKey The optional idempotency key.
      * @param object The expected {@link JSONObject}.
      * @return The response for corresponding request.
      */
     @POST
     @Consumes(MediaType.APPLICATION_JSON)
     @Produces(MediaType.APPLICATION_JSON)
-    public Response addSubscriber(final JSONObject object) {
-        final Subscriber subscriber = new Subscriber.Builder()
-                .fromJsonObject(object)
+    public Response addSubscriber(@HeaderParam(IdempotencyStore.HEADER) final String idempotencyKey,
+                                  final JSONObject object) {
+        final RequestEvent event = new RequestEvent();
+        event.begin();
+        final Object email = object == null ? null : object.get("email");
+        return commit(event, "POST", email instanceof String ? (String) email : null, object,
+                add(idempotencyKey, object));
+    }
+
+    /**
+     * Adds a new subscriber, replaying the cached response of a known idempotency key.
+     *
+     * @param idempotencyKey The optional idempotency key.
+     * @param object The expected {@link JSONObject}.
+     * @return The response for corresponding request.
+     */
+    private Response add(final String idempotencyKey, final JSONObject object) {
+        if (idempotencyKey == null) {
+            return add(object);
+        }
+        if (idempotencyKey.isEmpty() || idempotencyKey.length() > IdempotencyStore.MAX_KEY_LENGTH) {
+            LOGGER.error("Invalid idempotency key: {}", idempotencyKey);
+            return Response.status(Response.Status.BAD_REQUEST).build();
+        }
+        final byte[] fingerprint = IdempotencyStore.fingerprint(object);
+        final IdempotencyStore.Reservation reservation = this.idempotency.reserve(idempotencyKey, fingerprint);
+        if (!reservation.isOwner()) {
+            return replay(idempotencyKey, reservation.getEntry(), fingerprint);
+        }
+        boolean created = false;
+        try {
+            final Response response = add(object);
+            if (response.getStatus() == Response.Status.CREATED.getStatusCode()) {
+                this.idempotency.complete(idempotencyKey, reservation.getEntry(), response.getStatus(),
+                        response.getEntity());
+                created = true;
+            }
+            return response;
+        } finally {
+            if (!created) {
+                this.idempotency.release(idempotencyKey, reservation.getEntry());
+            }
+        }
+    }
+
+    /**
+     * Adds a new subscriber to the storage.
+     *
+     * @param object The expected {@link JSONObject}.
+     * @return The response for corresponding request.
+     */
+    private Response add(final JSONObject object) {
+        final Subscriber.Builder builder = new Subscriber.Builder();
+        final ValidationResult validation = builder.validate(object);
+        if (!validation.isValid()) {
+            LOGGER.warn("Rejected invalid subscriber: {}", validation);
+            return Response.status(Response.Status.BAD_REQUEST).entity(validation.toJsonObject()).build();
+        }
+        // the subscription time is assigned here, whatever the client sent
+        final Subscriber subscriber = builder
+                .subscribedAt(Instant.now().truncatedTo(ChronoUnit.MILLIS))
                 .build();
         if (JsonFileManager.INSTANCE.writeObject(subscriber)) {
             LOGGER.info("Added subscriber: {}", object.toString());
@@ -70,6 +155,51 @@ public class SubscriptionResource {
         return Response.status(Response.Status.BAD_REQUEST).build();
     }
 
+    /**
+     * Commits the flight recorder event of a request if enabled.
+     *
+     * @param event The event begun with the request.
+     * @param method The HTTP method.
+     * @param email The subscriber email, may be {@code null}.
+     * @param payload The {@link JSONObject} or {@link Subscriber} payload, may be {@code null}.
+     * @param response The response.
+     * @return The response.
+     */
+    private static Response commit(final RequestEvent event, final String method, final String email,
+                                   final Object payload, final Response response) {
+        event.end();
+        if (event.shouldCommit()) {
+            final JSONObject json = payload instanceof Subscriber ? ((Subscriber) payload).getJsonObject()
+                    : (JSONObject) payload;
+            event.set(email, json == null ? 0 : json.toJSONString().length());
+            event.setOutcome(method, response.getStatus());
+            event.commit();
+        }
+        return response;
+    }
+
+    /**
+     * Answers a request whose idempotency key is already known.
+     *
+     * @param idempotencyKey The idempotency key.
+     * @param previous The entry of the first request with this key.
+     * @param fingerprint The fingerprint of the payload.
+     * @return The cached response, or an error if the key is reused with another payload or still in flight.
+     */
+    private Response replay(final String idempotencyKey, final IdempotencyStore.Entry previous,
+                            final byte[] fingerprint) {
+        if (!previous.matches(fingerprint)) {
+            LOGGER.error("Idempotency key: {} reused with another payload", idempotencyKey);
+            return Response.status(UNPROCESSABLE_ENTITY).build();
+        }
+        if (!previous.isCompleted()) {
+            LOGGER.warn("Idempotency key: {} is still in flight", idempotencyKey);
+            return Response.status(Response.Status.CONFLICT).build();
+        }
+        LOGGER.info("Replayed response of idempotency key: {}", idempotencyKey);
+        return Response.status(previous.getStatus()).entity(previous.getEntity()).build();
+    }
+
     /**
      * Updates an existing subscriber from endpoint API.
      *
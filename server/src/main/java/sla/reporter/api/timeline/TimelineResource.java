@@ -0,0 +1,190 @@
+package sla.reporter.api.timeline;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.database.index.TimeBucketIndex;
+
+import javax.ws.rs.DefaultValue;
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.PathParam;
+import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import java.time.DateTimeException;
+import java.time.Duration;
+import java.time.Instant;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A class that provides the subscriptions over time of each newsletter.
+ *
+ * <p>Ranges are given as ISO-8601 instants and default to the last 24 hours.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Path("/api/timeline/{newsletterId}")
+public class TimelineResource {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(TimelineResource.class);
+
+    /**
+     * The default length of a range.
+     */
+    private static final Duration DEFAULT_RANGE = Duration.ofHours(24);
+    /**
+     * The maximum number of listed subscribers.
+     */
+    private static final int MAX_LIMIT = 10_000;
+
+    /**
+     * Counts the subscriptions of a newsletter per minute, hour or day from endpoint API.
+     *
+     * @param newsletterId The newsletter id.
+     * @param from The optional start of the range, rounded down to the step.
+     * @param to The optional end of the range, rounded up to the step.
+     * @param step The step, {@code minute}, {@code hour} or {@code day}.
+     * @return The response for corresponding request.
+     */
+    @GET
+    @Path("/counts")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getCounts(@PathParam("newsletterId") final String newsletterId,
+                              @QueryParam("from") final String from,
+                              @QueryParam("to") final String to,
+                              @QueryParam("step") @DefaultValue("hour") final String step) {
+        final long stepMillis;
+        final long fromMillis;
+        final long toMillis;
+        final long[] counts;
+        try {
+            stepMillis = stepMillis(step);
+            final Instant end = instant(to, Instant.now());
+            toMillis = Math.floorDiv(Math.addExact(end.toEpochMilli(), stepMillis - 1), stepMillis) * stepMillis;
+            fromMillis = Math.floorDiv(instant(from, end.minus(DEFAULT_RANGE)).toEpochMilli(), stepMillis)
+                    * stepMillis;
+            counts = TimeBucketIndex.INSTANCE.count(newsletterId, fromMillis, toMillis, stepMillis);
+        } catch (final IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            // instants out of the epoch milliseconds range overflow
+            LOGGER.error("Invalid timeline range: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(error(e)).build();
+        }
+        final JSONArray points = new JSONArray();
+        long total = 0;
+        for (int i = 0; i < counts.length; i++) {
+            final JSONObject point = new JSONObject();
+            point.put("start", Instant.ofEpochMilli(fromMillis + i * stepMillis).toString());
+            point.put("count", counts[i]);
+            points.add(point);
+            total += counts[i];
+        }
+        final JSONObject result = new JSONObject();
+        result.put("newsletterId", newsletterId);
+        result.put("from", Instant.ofEpochMilli(fromMillis).toString());
+        result.put("to", Instant.ofEpochMilli(toMillis).toString());
+        result.put("step", step);
+        result.put("total", total);
+        result.put("points", points);
+        LOGGER.info("Counted {} subscriptions of newsletter: {} in {} steps", total, newsletterId, counts.length);
+        return Response.status(Response.Status.OK).entity(result).build();
+    }
+
+    /**
+     * Lists the subscribers of a newsletter who subscribed within a range from endpoint API.
+     *
+     * @param newsletterId The newsletter id.
+     * @param from The optional start of the range, inclusive.
+     * @param to The optional end of the range, exclusive.
+     * @param limit The maximum number of subscribers.
+     * @return The response for corresponding request.
+     */
+    @GET
+    @Path("/subscribers")
+    @Produces(MediaType.APPLICATION_JSON)
+    public Response getSubscribers(@PathParam("newsletterId") final String newsletterId,
+                                   @QueryParam("from") final String from,
+                                   @QueryParam("to") final String to,
+                                   @QueryParam("limit") @DefaultValue("1000") final int limit) {
+        final long startMillis;
+        final long endMillis;
+        try {
+            checkArgument(limit > 0 && limit <= MAX_LIMIT, "The limit must be within 1 and %s", MAX_LIMIT);
+            final Instant end = instant(to, Instant.now());
+            endMillis = end.toEpochMilli();
+            startMillis = instant(from, end.minus(DEFAULT_RANGE)).toEpochMilli();
+            checkArgument(startMillis <= endMillis, "The range must not be reversed: [%s, %s)", from, to);
+        } catch (final IllegalArgumentException | ArithmeticException | DateTimeException e) {
+            // instants out of the epoch milliseconds range overflow
+            LOGGER.error("Invalid timeline range: {}", e.getMessage());
+            return Response.status(Response.Status.BAD_REQUEST).entity(error(e)).build();
+        }
+        final JSONArray subscribers = new JSONArray();
+        TimeBucketIndex.INSTANCE.forEachInRange(newsletterId, startMillis, endMillis, limit,
+                (email, subscribedAt) -> {
+                    final JSONObject subscriber = new JSONObject();
+                    subscriber.put("email", email);
+                    subscriber.put("subscribedAt", subscribedAt.toString());
+                    subscribers.add(subscriber);
+                });
+        LOGGER.info("Listed {} subscribers of newsletter: {}", subscribers.size(), newsletterId);
+        return Response.status(Response.Status.OK).entity(subscribers).build();
+    }
+
+    /**
+     * Gets the length of a step.
+     *
+     * @param step The step, {@code minute}, {@code hour} or {@code day}.
+     * @return The length in milliseconds.
+     * @throws IllegalArgumentException if the step is unknown.
+     */
+    private static long stepMillis(final String step) {
+        switch (step) {
+            case "minute":
+                return Duration.ofMinutes(1).toMillis();
+            case "hour":
+                return Duration.ofHours(1).toMillis();
+            case "day":
+                return Duration.ofDays(1).toMillis();
+            default:
+                throw new IllegalArgumentException("Unknown step: " + step);
+        }
+    }
+
+    /**
+     * Parses an optional instant.
+     *
+     * @param value The ISO-8601 instant, may be {@code null}.
+     * @param defaultValue The instant used when the value is absent.
+     * @return The instant.
+     * @throws IllegalArgumentException if the value isn't an instant.
+     */
+    private static Instant instant(final String value, final Instant defaultValue) {
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Instant.parse(value);
+        } catch (final DateTimeException e) {
+            throw new IllegalArgumentException("Invalid instant: " + value, e);
+        }
+    }
+
+    /**
+     * Creates the error entity of an invalid request.
+     *
+     * @param e The error.
+     * @return The error entity.
+     */
+    private static JSONObject error(final RuntimeException e) {
+        final JSONObject error = new JSONObject();
+        error.put("error", e.getMessage());
+        return error;
+    }
+}
@@ -0,0 +1,34 @@
+package sla.reporter.api.validation;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.model.ValidationException;
+
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+import javax.ws.rs.ext.ExceptionMapper;
+import javax.ws.rs.ext.Provider;
+
+/**
+ * A mapper that answers a {@link ValidationException} escaping a resource with a structured 400 instead of a 500.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Provider
+public class ValidationExceptionMapper implements ExceptionMapper<ValidationException> {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(ValidationExceptionMapper.class);
+
+    @Override
+    public Response toResponse(final ValidationException exception) {
+        // the exception has no stack trace, only its field errors are worth logging
+        LOGGER.warn("Rejected invalid payload: {}", exception.getMessage());
+        return Response.status(Response.Status.BAD_REQUEST)
+                .type(MediaType.APPLICATION_JSON)
+                .entity(exception.getResult().toJsonObject())
+                .build();
+    }
+}
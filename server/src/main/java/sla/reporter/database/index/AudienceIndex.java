@@ -0,0 +1,228 @@
+package sla.reporter.database.index;
+
+import org.roaringbitmap.IntIterator;
+import org.roaringbitmap.RoaringBitmap;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * Enum singleton with a single-element used to segment the audience with compressed bitmaps.
+ *
+ * <p>Each subscriber gets a dense integer id in insertion order. Bitmaps of ids are kept for consent, each
+ * {@link Gender}, each newsletter id and each birth year, so an {@link AudienceQuery} combines a few bitmaps instead of
+ * deserializing every stored subscriber.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public enum AudienceIndex {
+
+    /**
+     * The instance.
+     */
+    INSTANCE;
+
+    /**
+     * The number of emails streamed per read lock acquisition.
+     */
+    private static final int STREAM_BATCH = 1024;
+
+    /**
+     * The lock guarding the bitmaps, queries share it while additions are exclusive.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * The email of each id.
+     */
+    private final List<String> emails = new ArrayList<>();
+    /**
+     * The ids of every subscriber.
+     */
+    private RoaringBitmap all = new RoaringBitmap();
+    /**
+     * The ids of the consenting subscribers.
+     */
+    private RoaringBitmap consenting = new RoaringBitmap();
+    /**
+     * The ids by {@link Gender}.
+     */
+    private final Map<Gender, RoaringBitmap> genders = new EnumMap<>(Gender.class);
+    /**
+     * The ids by newsletter id.
+     */
+    private final Map<String, RoaringBitmap> newsletters = new HashMap<>();
+    /**
+     * The ids by birth year, sorted so that a range of years only visits the indexed ones.
+     */
+    private final NavigableMap<Integer, RoaringBitmap> birthYears = new TreeMap<>();
+
+    /**
+     * Adds a subscriber, which is expected not to be indexed yet.
+     *
+     * @param subscriber The subscriber.
+     */
+    public void add(final Subscriber subscriber) {
+        this.lock.writeLock().lock();
+        try {
+            final int id = this.emails.size();
+            this.emails.add(subscriber.getEmail());
+            this.all.add(id);
+            if (subscriber.hasConsent()) {
+                this.consenting.add(id);
+            }
+            this.genders.computeIfAbsent(subscriber.genderValue(), gender -> new RoaringBitmap()).add(id);
+            this.newsletters.computeIfAbsent(subscriber.getNewsletterId(), newsletter -> new RoaringBitmap()).add(id);
+            this.birthYears.computeIfAbsent(subscriber.birthDayValue().getYear(), year -> new RoaringBitmap()).add(id);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the subscribers matching the given query.
+     *
+     * @param query The query.
+     * @return The number of matching subscribers.
+     */
+    public long count(final AudienceQuery query) {
+        this.lock.readLock().lock();
+        try {
+            return query.evaluate(this).getLongCardinality();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Streams the emails of the subscribers matching the given query, in insertion order.
+     *
+     * @param query The query.
+     * @param limit The maximum number of emails.
+     * @param consumer The consumer of each email.
+     */
+    public void forEachMatch(final AudienceQuery query, final long limit, final Consumer<String> consumer) {
+        final RoaringBitmap matches;
+        this.lock.readLock().lock();
+        try {
+            // the result may be one of the indexed bitmaps, which keeps growing
+            matches = query.evaluate(this).clone();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        final IntIterator ids = matches.getIntIterator();
+        final String[] batch = new String[STREAM_BATCH];
+        long streamed = 0;
+        while (ids.hasNext() && streamed < limit) {
+            int size = 0;
+            this.lock.readLock().lock();
+            try {
+                while (ids.hasNext() && size < STREAM_BATCH && streamed + size < limit) {
+                    batch[size++] = this.emails.get(ids.next());
+                }
+            } finally {
+                this.lock.readLock().unlock();
+            }
+            for (int i = 0; i < size; i++) {
+                consumer.accept(batch[i]);
+            }
+            streamed += size;
+        }
+    }
+
+    /**
+     * Gets the number of indexed subscribers.
+     *
+     * @return The number of indexed subscribers.
+     */
+    public int size() {
+        this.lock.readLock().lock();
+        try {
+            return this.emails.size();
+        } finally {
+            this.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every indexed subscriber.
+     */
+    public void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.emails.clear();
+            this.all = new RoaringBitmap();
+            this.consenting = new RoaringBitmap();
+            this.genders.clear();
+            this.newsletters.clear();
+            this.birthYears.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the ids of every subscriber.
+     *
+     * @return The bitmap, which must not be modified.
+     */
+    RoaringBitmap all() {
+        return this.all;
+    }
+
+    /**
+     * Gets the ids of the consenting subscribers.
+     *
+     * @return The bitmap, which must not be modified.
+     */
+    RoaringBitmap consenting() {
+        return this.consenting;
+    }
+
+    /**
+     * Gets the ids of the given gender.
+     *
+     * @param gender The gender.
+     * @return The bitmap, which must not be modified.
+     */
+    RoaringBitmap gender(final Gender gender) {
+        return this.genders.getOrDefault(gender, new RoaringBitmap());
+    }
+
+    /**
+     * Gets the ids of the given newsletter.
+     *
+     * @param newsletterId The newsletter id.
+     * @return The bitmap, which must not be modified.
+     */
+    RoaringBitmap newsletter(final String newsletterId) {
+        return this.newsletters.getOrDefault(newsletterId, new RoaringBitmap());
+    }
+
+    /**
+     * Gets the ids born within the given years.
+     *
+     * @param from The first birth year, inclusive.
+     * @param to The last birth year, inclusive.
+     * @return The bitmap, which must not be modified.
+     */
+    RoaringBitmap birthYears(final int from, final int to) {
+        RoaringBitmap result = new RoaringBitmap();
+        if (from > to) {
+            return result;
+        }
+        for (final RoaringBitmap bucket : this.birthYears.subMap(from, true, to, true).values()) {
+            result = RoaringBitmap.or(result, bucket);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,324 @@
+package sla.reporter.database.index;
+
+import org.roaringbitmap.RoaringBitmap;
+import sla.reporter.model.Gender;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Class that represents a boolean expression over the {@link AudienceIndex} bitmaps.
+ *
+ * <p>Queries are parsed from JSON objects holding a single key:
+ * <pre>
+ * {"and": [query, ...]}      {"or": [query, ...]}      {"not": query}
+ * {"consent": true}          {"gender": "female"}      {"newsletterId": "X"}
+ * {"birthYear": {"from": 1995, "to": 2002}}
+ * {"age": {"min": 18, "max": 25}}
+ * </pre>
+ * Ages are resolved to birth years, i.e. the age a subscriber reaches during the current year.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public abstract class AudienceQuery {
+
+    /**
+     * Evaluates the query.
+     *
+     * @param index The index, whose read lock is held by the caller.
+     * @return The matching ids, which may be one of the indexed bitmaps and must not be modified.
+     */
+    abstract RoaringBitmap evaluate(AudienceIndex index);
+
+    /**
+     * Parses a query.
+     *
+     * @param json The query as a JSON object.
+     * @return The query.
+     * @throws IllegalArgumentException if the query is malformed.
+     */
+    public static AudienceQuery parse(final Object json) {
+        return parse(json, Clock.systemDefaultZone());
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param json The query as a JSON object.
+     * @param clock The clock used to resolve ages.
+     * @return The query.
+     * @throws IllegalArgumentException if the query is malformed.
+     */
+    static AudienceQuery parse(final Object json, final Clock clock) {
+        checkArgument(json instanceof Map && ((Map<?, ?>) json).size() == 1,
+                "A query must be an object with a single key: %s", json);
+        final Map.Entry<?, ?> entry = ((Map<?, ?>) json).entrySet().iterator().next();
+        final Object operand = entry.getValue();
+        switch (String.valueOf(entry.getKey())) {
+            case "and":
+                return new And(parseAll(operand, clock));
+            case "or":
+                return new Or(parseAll(operand, clock));
+            case "not":
+                return new Not(parse(operand, clock));
+            case "consent":
+                checkArgument(operand instanceof Boolean || "true".equals(operand) || "false".equals(operand),
+                        "Consent must be a boolean: %s", operand);
+                return new Consent(Boolean.parseBoolean(String.valueOf(operand)));
+            case "gender":
+                return new GenderIs(Gender.fromString(String.valueOf(operand)).toJavaUtil()
+                        .orElseThrow(() -> new IllegalArgumentException("Unknown gender: " + operand)));
+            case "newsletterId":
+                checkArgument(operand instanceof String, "NewsletterId must be a string: %s", operand);
+                return new Newsletter((String) operand);
+            case "birthYear":
+                return new BirthYears(integer(operand, "from", Integer.MIN_VALUE),
+                        integer(operand, "to", Integer.MAX_VALUE));
+            case "age": {
+                final int year = LocalDate.now(clock).getYear();
+                final int min = integer(operand, "min", 0);
+                final int max = integer(operand, "max", 200);
+                checkArgument(min >= 0 && max >= 0, "Ages must not be negative: %s", operand);
+                return new BirthYears(year - max, year - min);
+            }
+            default:
+                throw new IllegalArgumentException("Unknown query: " + entry.getKey());
+        }
+    }
+
+    /**
+     * Parses the operands of a boolean operator.
+     *
+     * @param json The operands as a JSON array.
+     * @param clock The clock used to resolve ages.
+     * @return The operands.
+     */
+    private static List<AudienceQuery> parseAll(final Object json, final Clock clock) {
+        checkArgument(json instanceof List && !((List<?>) json).isEmpty(), "Operands must be a non empty array: %s",
+                json);
+        final List<AudienceQuery> queries = new ArrayList<>();
+        for (final Object operand : (List<?>) json) {
+            queries.add(parse(operand, clock));
+        }
+        return queries;
+    }
+
+    /**
+     * Gets an integer bound of a range.
+     *
+     * @param json The range as a JSON object.
+     * @param key The bound key.
+     * @param defaultValue The value used when the bound is absent.
+     * @return The bound.
+     * @throws IllegalArgumentException if the bound isn't an integer within the {@code int} range.
+     */
+    private static int integer(final Object json, final String key, final int defaultValue) {
+        checkArgument(json instanceof Map, "A range must be an object: %s", json);
+        final Object value = ((Map<?, ?>) json).get(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        checkArgument(value instanceof Number, "%s must be a number: %s", key, value);
+        try {
+            // rejects fractions and values out of range rather than truncating them
+            return new BigDecimal(value.toString()).intValueExact();
+        } catch (final ArithmeticException | NumberFormatException e) {
+            throw new IllegalArgumentException(String.format("%s must be an integer: %s", key, value), e);
+        }
+    }
+
+    /**
+     * Matches the ids matching every operand.
+     */
+    private static final class And extends AudienceQuery {
+
+        /**
+         * The operands.
+         */
+        private final List<AudienceQuery> operands;
+
+        /**
+         * Constructor.
+         *
+         * @param operands The operands.
+         */
+        private And(final List<AudienceQuery> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            RoaringBitmap result = this.operands.get(0).evaluate(index);
+            for (int i = 1; i < this.operands.size(); i++) {
+                result = RoaringBitmap.and(result, this.operands.get(i).evaluate(index));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Matches the ids matching any operand.
+     */
+    private static final class Or extends AudienceQuery {
+
+        /**
+         * The operands.
+         */
+        private final List<AudienceQuery> operands;
+
+        /**
+         * Constructor.
+         *
+         * @param operands The operands.
+         */
+        private Or(final List<AudienceQuery> operands) {
+            this.operands = operands;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            RoaringBitmap result = this.operands.get(0).evaluate(index);
+            for (int i = 1; i < this.operands.size(); i++) {
+                result = RoaringBitmap.or(result, this.operands.get(i).evaluate(index));
+            }
+            return result;
+        }
+    }
+
+    /**
+     * Matches the ids not matching the operand.
+     */
+    private static final class Not extends AudienceQuery {
+
+        /**
+         * The operand.
+         */
+        private final AudienceQuery operand;
+
+        /**
+         * Constructor.
+         *
+         * @param operand The operand.
+         */
+        private Not(final AudienceQuery operand) {
+            this.operand = operand;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            return RoaringBitmap.andNot(index.all(), this.operand.evaluate(index));
+        }
+    }
+
+    /**
+     * Matches the ids of the given consent.
+     */
+    private static final class Consent extends AudienceQuery {
+
+        /**
+         * The expected consent.
+         */
+        private final boolean consent;
+
+        /**
+         * Constructor.
+         *
+         * @param consent The expected consent.
+         */
+        private Consent(final boolean consent) {
+            this.consent = consent;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            return this.consent ? index.consenting() : RoaringBitmap.andNot(index.all(), index.consenting());
+        }
+    }
+
+    /**
+     * Matches the ids of the given gender.
+     */
+    private static final class GenderIs extends AudienceQuery {
+
+        /**
+         * The expected gender.
+         */
+        private final Gender gender;
+
+        /**
+         * Constructor.
+         *
+         * @param gender The expected gender.
+         */
+        private GenderIs(final Gender gender) {
+            this.gender = gender;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            return index.gender(this.gender);
+        }
+    }
+
+    /**
+     * Matches the ids of the given newsletter.
+     */
+    private static final class Newsletter extends AudienceQuery {
+
+        /**
+         * The expected newsletter id.
+         */
+        private final String newsletterId;
+
+        /**
+         * Constructor.
+         *
+         * @param newsletterId The expected newsletter id.
+         */
+        private Newsletter(final String newsletterId) {
+            this.newsletterId = newsletterId;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            return index.newsletter(this.newsletterId);
+        }
+    }
+
+    /**
+     * Matches the ids born within the given years.
+     */
+    private static final class BirthYears extends AudienceQuery {
+
+        /**
+         * The first birth year, inclusive.
+         */
+        private final int from;
+        /**
+         * The last birth year, inclusive.
+         */
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param from The first birth year, inclusive.
+         * @param to The last birth year, inclusive.
+         */
+        private BirthYears(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        RoaringBitmap evaluate(final AudienceIndex index) {
+            return index.birthYears(this.from, this.to);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package sla.reporter.database.index;
+
+import sla.reporter.model.Subscriber;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Enum singleton with a single-element used to report subscriptions over time.
+ *
+ * <p>Each subscriber with a subscription time gets an offset in insertion order. Per newsletter id, a sorted map of
+ * one-minute buckets holds the number and the offsets of the subscribers of each minute, so a time range only touches
+ * the buckets it covers whatever the number of stored subscribers.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public enum TimeBucketIndex {
+
+    /**
+     * The instance.
+     */
+    INSTANCE;
+
+    /**
+     * The length of a bucket in milliseconds.
+     */
+    public static final long BUCKET_MILLIS = 60_000L;
+    /**
+     * The maximum number of points of a series.
+     */
+    public static final int MAX_POINTS = 10_000;
+    /**
+     * The initial number of members.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * The lock guarding the buckets, queries share it while additions are exclusive.
+     */
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    /**
+     * The email of each offset.
+     */
+    private String[] emails = new String[INITIAL_CAPACITY];
+    /**
+     * The subscription time of each offset in epoch milliseconds.
+     */
+    private long[] times = new long[INITIAL_CAPACITY];
+    /**
+     * The number of members.
+     */
+    private int size;
+    /**
+     * The buckets by newsletter id, each keyed by its start in epoch milliseconds.
+     */
+    private final Map<String, NavigableMap<Long, Bucket>> newsletters = new HashMap<>();
+
+    /**
+     * Adds a subscriber, which is expected not to be indexed yet. Subscribers without subscription time are ignored.
+     *
+     * @param subscriber The subscriber.
+     */
+    public void add(final Subscriber subscriber) {
+        if (!subscriber.optionalSubscribedAt().isPresent()) {
+            return;
+        }
+        final long time = subscriber.optionalSubscribedAt().get().toEpochMilli();
+        this.lock.writeLock().lock();
+        try {
+            if (this.size == this.emails.length) {
+                this.emails = Arrays.copyOf(this.emails, this.size * 2);
+                this.times = Arrays.copyOf(this.times, this.size * 2);
+            }
+            final int offset = this.size++;
+            this.emails[offset] = subscriber.getEmail();
+            this.times[offset] = time;
+            this.newsletters.computeIfAbsent(subscriber.getNewsletterId(), newsletter -> new TreeMap<>())
+                    .computeIfAbsent(Math.floorDiv(time, BUCKET_MILLIS) * BUCKET_MILLIS, start -> new Bucket())
+                    .add(offset);
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Counts the subscriptions of a newsletter per step.
+     *
+     * @param newsletterId The newsletter id.
+     * @param from The start of the first step in epoch milliseconds, inclusive and aligned to the step.
+     * @param to The end of the last step in epoch milliseconds, exclusive and aligned to the step.
+     * @param step The length of a step in milliseconds, a multiple of {@link #BUCKET_MILLIS}.
+     * @return The number of subscriptions of each step.
+     * @throws IllegalArgumentException if the range is invalid or holds more than {@link #MAX_POINTS} steps.
+     */
+    public long[] count(final String newsletterId, final long from, final long to, final long step) {
+        checkArgument(step > 0 && step % BUCKET_MILLIS == 0, "The step must be a multiple of a minute: %s", step);
+        checkArgument(from <= to && from % step == 0 && to % step == 0,
+                "The range must be aligned to the step: [%s, %s)", from, to);
+        // both ends are aligned, so dividing them first can't overflow
+        checkArgument(to / step - from / step <= MAX_POINTS, "The range must hold at most %s steps", MAX_POINTS);
+        final long[] counts = new long[(int) (to / step - from / step)];
+        this.lock.readLock().lock();
+        try {
+            for (final Map.Entry<Long, Bucket> bucket : buckets(newsletterId, from, to).entrySet()) {
+                counts[(int) ((bucket.getKey() - from) / step)] += bucket.getValue().count;
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        return counts;
+    }
+
+    /**
+     * Lists the subscribers of a newsletter who subscribed within a time range, minute by minute.
+     *
+     * <p>The buckets lying within the range are taken whole, the exact subscription times are only checked within the
+     * first and last buckets, and the walk stops as soon as the limit is reached.
+     *
+     * @param newsletterId The newsletter id.
+     * @param from The start of the range in epoch milliseconds, inclusive.
+     * @param to The end of the range in epoch milliseconds, exclusive.
+     * @param limit The maximum number of subscribers.
+     * @param consumer The consumer of each email and subscription time, called once the index is released.
+     * @throws IllegalArgumentException if the range is reversed.
+     */
+    public void forEachInRange(final String newsletterId, final long from, final long to, final int limit,
+                               final BiConsumer<String, Instant> consumer) {
+        checkArgument(from <= to, "The range must not be reversed: [%s, %s)", from, to);
+        final List<String> matchingEmails = new ArrayList<>();
+        final List<Instant> matchingTimes = new ArrayList<>();
+        this.lock.readLock().lock();
+        try {
+            final long firstBucket = Math.floorDiv(from, BUCKET_MILLIS) * BUCKET_MILLIS;
+            for (final Map.Entry<Long, Bucket> entry : buckets(newsletterId, firstBucket, to).entrySet()) {
+                if (matchingEmails.size() >= limit) {
+                    break;
+                }
+                final Bucket bucket = entry.getValue();
+                final boolean edge = entry.getKey() < from || entry.getKey() > to - BUCKET_MILLIS;
+                for (int i = 0; i < bucket.count && matchingEmails.size() < limit; i++) {
+                    final int offset = bucket.offsets[i];
+                    if (!edge || (this.times[offset] >= from && this.times[offset] < to)) {
+                        matchingEmails.add(this.emails[offset]);
+                        matchingTimes.add(Instant.ofEpochMilli(this.times[offset]));
+                    }
+                }
+            }
+        } finally {
+            this.lock.readLock().unlock();
+        }
+        for (int i = 0; i < matchingEmails.size(); i++) {
+            consumer.accept(matchingEmails.get(i), matchingTimes.get(i));
+        }
+    }
+
+    /**
+     * Removes every indexed subscriber.
+     */
+    public void clear() {
+        this.lock.writeLock().lock();
+        try {
+            this.emails = new String[INITIAL_CAPACITY];
+            this.times = new long[INITIAL_CAPACITY];
+            this.size = 0;
+            this.newsletters.clear();
+        } finally {
+            this.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Gets the buckets of a newsletter starting within a time range.
+     *
+     * @param newsletterId The newsletter id.
+     * @param from The start of the range in epoch milliseconds, inclusive.
+     * @param to The end of the range in epoch milliseconds, exclusive.
+     * @return The buckets, keyed by their start.
+     */
+    private NavigableMap<Long, Bucket> buckets(final String newsletterId, final long from, final long to) {
+        final NavigableMap<Long, Bucket> buckets = this.newsletters.get(newsletterId);
+        if (buckets == null) {
+            return new TreeMap<>();
+        }
+        return buckets.subMap(from, true, to, false);
+    }
+
+    /**
+     * The subscribers of a newsletter within a minute.
+     */
+    private static final class Bucket {
+
+        /**
+         * The number of subscribers.
+         */
+        private int count;
+        /**
+         * The offsets of the subscribers, the first {@link #count} are used.
+         */
+        private int[] offsets = new int[4];
+
+        /**
+         * Adds a subscriber.
+         *
+         * @param offset The subscriber offset.
+         */
+        private void add(final int offset) {
+            if (this.count == this.offsets.length) {
+                this.offsets = Arrays.copyOf(this.offsets, this.count * 2);
+            }
+            this.offsets[this.count++] = offset;
+        }
+    }
+}
@@ -1,16 +1,41 @@
 package sla.reporter.database.nosql;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import org.json.simple.JSONObject;
 import org.json.simple.parser.JSONParser;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
 import sla.reporter.model.Subscriber;
+import sla.reporter.monitoring.events.CacheLookupEvent;
+import sla.reporter.monitoring.events.FileOpenEvent;
+import sla.reporter.monitoring.events.FileParseEvent;
+import sla.reporter.monitoring.events.FileWriteEvent;
+import sla.reporter.monitoring.events.StorageLockWaitEvent;
 
 import java.io.File;
 import java.io.FileReader;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.HashMap;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkState;
 
 /**
  * Enum singleton with a single-element used for file data storage.
@@ -29,7 +54,50 @@ public enum JsonFileManager {
 
     private final String folder = System.getProperty("user.dir") + File.separator + "storage";
 
-    private final HashMap<String, Subscriber> memoization = new HashMap<>();
+    /**
+     * The folder where subscribers are written before being atomically moved into {@link #folder}, so that readers
+     * never see a partially written file.
+     */
+    private final String temporaryFolder = folder + File.separator + ".tmp";
+
+    /**
+     * The folder where snapshots are staged, see {@link StorageSnapshot}.
+     */
+    private final String snapshotFolder = folder + File.separator + ".snapshots";
+
+    /**
+     * The emails of the stored subscribers in write order, starting with the ones found at startup by modification
+     * time.
+     */
+    private final Queue<String> writeLog = new ConcurrentLinkedQueue<>(listStored());
+
+    /**
+     * The number of emails in {@link #writeLog}, guarded by this manager.
+     */
+    private long written = writeLog.size();
+
+    /**
+     * The on-heap cache of the most recently read subscribers.
+     */
+    private final Cache<String, Subscriber> memoization = CacheBuilder.newBuilder()
+            .maximumSize(Long.getLong("sla.reporter.cache.heap.entries", 10_000L))
+            .build();
+
+    /**
+     * The compact off-heap cache beneath {@link #memoization}, holding up to millions of subscribers.
+     */
+    private final OffHeapSubscriberCache offHeap =
+            new OffHeapSubscriberCache(Long.getLong("sla.reporter.cache.offheap.bytes", 256L * 1024 * 1024));
+
+    /**
+     * The loads in flight by email, shared by concurrent readers of the same cold subscriber.
+     */
+    private final ConcurrentHashMap<String, CompletableFuture<Subscriber>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * The loader of the subscribers missing the caches, reading their files unless replaced by {@link #setLoader}.
+     */
+    private volatile Loader loader = this::readFile;
 
     /**
      * Adds the subscriber to the file.
@@ -37,45 +105,311 @@ public enum JsonFileManager {
      * @param subscriber The subscriber to be written.
      */
     public boolean writeObject(final Subscriber subscriber) {
-        final JSONObject jsonObject = subscriber.getJsonObject();
+        final String json = subscriber.getJsonObject().toJSONString();
         createFolderIfNotExist();
-        if (isSubscriberExist(subscriber.getEmail())) {
-            LOGGER.info("Subscriber: {} already existed", subscriber);
-            return false;
-        }
+        final StorageLockWaitEvent lockWait = new StorageLockWaitEvent();
+        lockWait.begin();
         synchronized (this) {
-            try (final FileWriter file = new FileWriter(folder + File.separator + subscriber.getEmail())) {
-                file.write(jsonObject.toJSONString());
-                return true;
+            lockWait.end();
+            if (lockWait.shouldCommit()) {
+                lockWait.set(subscriber.getEmail(), json.length());
+                lockWait.commit();
+            }
+            // checked under the lock so that concurrent writes of the same subscriber can't both succeed
+            if (isSubscriberExist(subscriber.getEmail())) {
+                LOGGER.info("Subscriber: {} already existed", subscriber);
+                return false;
+            }
+            final FileWriteEvent write = new FileWriteEvent();
+            write.begin();
+            final File temporary = new File(temporaryFolder, subscriber.getEmail());
+            try (final FileWriter file = new FileWriter(temporary)) {
+                file.write(json);
+            } catch (final IOException e) {
+                LOGGER.error("Failed writing subscriber: {} into: {}", subscriber.getEmail(), temporaryFolder, e);
+                deleteTemporary(temporary);
+                return false;
+            }
+            try {
+                Files.move(temporary.toPath(), new File(folder, subscriber.getEmail()).toPath(),
+                        StandardCopyOption.ATOMIC_MOVE);
             } catch (final IOException e) {
+                LOGGER.error("Failed moving subscriber: {} into storage", subscriber.getEmail(), e);
+                deleteTemporary(temporary);
                 return false;
             }
+            write.end();
+            if (write.shouldCommit()) {
+                write.set(subscriber.getEmail(), json.length());
+                write.commit();
+            }
+            writeLog.add(subscriber.getEmail());
+            written++;
+            AudienceIndex.INSTANCE.add(subscriber);
+            TimeBucketIndex.INSTANCE.add(subscriber);
+        }
+        offHeap.put(subscriber);
+        return true;
+    }
+
+    /**
+     * Freezes a point-in-time view of the storage, while writes keep going.
+     *
+     * <p>Only the number of written subscribers is read under the lock, the files written before it are then linked
+     * into a staging folder.
+     *
+     * @return The snapshot, to be closed once read.
+     * @throws IOException if the snapshot couldn't be staged.
+     */
+    public StorageSnapshot snapshot() throws IOException {
+        final long watermark;
+        synchronized (this) {
+            watermark = written;
+        }
+        final Path snapshots = Files.createDirectories(Paths.get(snapshotFolder));
+        final Path staging = Files.createTempDirectory(snapshots, "snapshot-");
+        return StorageSnapshot.stage(Paths.get(folder), staging, writeLog.iterator(), watermark);
+    }
+
+    /**
+     * Restores the subscribers of a snapshot archive into the empty storage, e.g. to boot a new node.
+     *
+     * @param archive The archive written by {@link StorageSnapshot#writeZip}.
+     * @return The number of restored subscribers.
+     * @throws IOException if the archive couldn't be read.
+     * @throws IllegalStateException if the storage isn't empty.
+     * @throws IllegalArgumentException if the archive has an invalid entry.
+     */
+    public synchronized int restore(final InputStream archive) throws IOException {
+        checkState(written == 0, "Can't restore into a storage holding %s subscribers", written);
+        createFolderIfNotExist();
+        final Path extracted = Files.createTempDirectory(Paths.get(temporaryFolder), "restore-");
+        try {
+            final List<String> emails = StorageSnapshot.extract(archive, extracted);
+            for (final String email : emails) {
+                Files.move(extracted.resolve(email), Paths.get(folder, email), StandardCopyOption.ATOMIC_MOVE);
+                writeLog.add(email);
+                written++;
+            }
+            LOGGER.info("Restored {} subscribers", emails.size());
+            return emails.size();
+        } finally {
+            StorageSnapshot.delete(extracted);
+        }
+    }
+
+    /**
+     * Reads every stored subscriber, oldest first, without filling the caches.
+     *
+     * @param consumer The consumer of each subscriber.
+     */
+    public void forEachStored(final Consumer<Subscriber> consumer) {
+        final File[] files = new File(folder).listFiles(File::isFile);
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+        for (final File file : files) {
+            try (final FileReader reader = new FileReader(file)) {
+                final JSONObject jsonObject = (JSONObject) new JSONParser().parse(reader);
+                consumer.accept(new Subscriber.Builder()
+                        .fromJsonObject(jsonObject)
+                        .build());
+            } catch (final Exception e) {
+                LOGGER.error("Failed reading stored subscriber: {}", file.getName(), e);
+            }
         }
     }
 
     /**
      * Gets the subscriber from the file by given email.
      *
+     * <p>Concurrent readers missing the caches for the same email share a single load: the first one reads and
+     * parses the file while the others wait for its result.
+     *
      * @param email The email.
      */
     public Subscriber readObject(final String email) throws Exception {
-        if (memoization.containsKey(email)) {
-            return memoization.get(email);
+        final CacheLookupEvent heapLookup = new CacheLookupEvent();
+        heapLookup.begin();
+        final Subscriber memoized = memoization.getIfPresent(email);
+        heapLookup.end();
+        if (heapLookup.shouldCommit()) {
+            heapLookup.set(email, memoization.size());
+            heapLookup.setOutcome("heap", memoized != null);
+            heapLookup.commit();
         }
-        final JSONParser parser = new JSONParser();
-        final JSONObject jsonObject;
-        synchronized (this) {
-            try (final FileReader file = new FileReader(folder + File.separator + email)) {
-                jsonObject = (JSONObject) parser.parse(file);
-            }
+        if (memoized != null) {
+            return memoized;
+        }
+        final CacheLookupEvent offHeapLookup = new CacheLookupEvent();
+        offHeapLookup.begin();
+        final Subscriber cached = offHeap.get(email);
+        offHeapLookup.end();
+        if (offHeapLookup.shouldCommit()) {
+            offHeapLookup.set(email, offHeap.size());
+            offHeapLookup.setOutcome("offheap", cached != null);
+            offHeapLookup.commit();
+        }
+        if (cached != null) {
+            memoization.put(email, cached);
+            return cached;
+        }
+        final CompletableFuture<Subscriber> load = new CompletableFuture<>();
+        final CompletableFuture<Subscriber> pending = inFlight.putIfAbsent(email, load);
+        if (pending != null) {
+            return await(pending);
         }
-        final Subscriber subscriber = new Subscriber.Builder()
-                .fromJsonObject(jsonObject)
-                .build();
+        try {
+            final Subscriber subscriber = load(email);
+            load.complete(subscriber);
+            return subscriber;
+        } catch (final Exception e) {
+            load.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(email, load);
+        }
+    }
+
+    /**
+     * Loads the subscriber and fills the caches.
+     *
+     * @param email The email.
+     * @return The subscriber.
+     */
+    private Subscriber load(final String email) throws Exception {
+        final Subscriber subscriber = loader.load(email);
+        offHeap.put(subscriber);
         memoization.put(email, subscriber);
         return subscriber;
     }
 
+    /**
+     * Reads the subscriber from its file.
+     *
+     * @param email The email.
+     * @return The subscriber.
+     */
+    private Subscriber readFile(final String email) throws Exception {
+        final File file = new File(folder, email);
+        final FileOpenEvent open = new FileOpenEvent();
+        open.begin();
+        final Subscriber subscriber;
+        try (final FileReader reader = new FileReader(file)) {
+            open.end();
+            if (open.shouldCommit()) {
+                open.set(email, file.length());
+                open.commit();
+            }
+            final FileParseEvent parse = new FileParseEvent();
+            parse.begin();
+            final JSONObject jsonObject = (JSONObject) new JSONParser().parse(reader);
+            subscriber = new Subscriber.Builder()
+                    .fromJsonObject(jsonObject)
+                    .build();
+            parse.end();
+            if (parse.shouldCommit()) {
+                parse.set(email, file.length());
+                parse.commit();
+            }
+        }
+        return subscriber;
+    }
+
+    /**
+     * Waits for the load started by another reader.
+     *
+     * @param pending The load in flight.
+     * @return The subscriber.
+     */
+    private static Subscriber await(final CompletableFuture<Subscriber> pending) throws Exception {
+        try {
+            return pending.get();
+        } catch (final ExecutionException e) {
+            if (e.getCause() instanceof Exception) {
+                throw (Exception) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Replaces the loader of the subscribers missing the caches, used to hold or fail loads in tests and to read
+     * another folder in benchmarks.
+     *
+     * @param loader The loader.
+     * @return The replaced loader.
+     */
+    Loader setLoader(final Loader loader) {
+        final Loader replaced = this.loader;
+        this.loader = loader;
+        return replaced;
+    }
+
+    /**
+     * Drops every cached subscriber.
+     */
+    public void invalidateCaches() {
+        memoization.invalidateAll();
+        offHeap.clear();
+    }
+
+    /**
+     * Drops every cached subscriber and lists the storage again, e.g. after the storage folder was changed outside of
+     * this manager.
+     */
+    public void reload() {
+        invalidateCaches();
+        synchronized (this) {
+            writeLog.clear();
+            writeLog.addAll(listStored());
+            written = writeLog.size();
+        }
+    }
+
+    /**
+     * Lists the emails of the stored subscribers, oldest first.
+     *
+     * @return The emails.
+     */
+    private List<String> listStored() {
+        final File[] files = new File(folder).listFiles(File::isFile);
+        final List<String> emails = new ArrayList<>();
+        if (files != null) {
+            Arrays.sort(files, Comparator.comparingLong(File::lastModified));
+            for (final File file : files) {
+                emails.add(file.getName());
+            }
+        }
+        return emails;
+    }
+
+    /**
+     * Deletes the snapshots left staged, e.g. by a process stopped while streaming them. Meant to be called at
+     * startup, before any snapshot is taken.
+     */
+    public void deleteStagedSnapshots() {
+        try {
+            StorageSnapshot.delete(Paths.get(snapshotFolder));
+        } catch (final IOException e) {
+            LOGGER.error("Failed deleting staged snapshots in: {}", snapshotFolder, e);
+        }
+    }
+
+    /**
+     * Deletes a partially written subscriber file.
+     *
+     * @param temporary The file in {@link #temporaryFolder}.
+     */
+    private static void deleteTemporary(final File temporary) {
+        try {
+            Files.deleteIfExists(temporary.toPath());
+        } catch (final IOException e) {
+            LOGGER.error("Failed deleting temporary file: {}", temporary, e);
+        }
+    }
+
     /**
      * Checks whether a subscriber with given email exists.
      * @param email The expexted email.
@@ -90,9 +424,25 @@ public enum JsonFileManager {
      * Creates the storage folder if not exist.
      */
     private void createFolderIfNotExist() {
-        final File directory = new File(folder);
+        final File directory = new File(temporaryFolder);
         if (!directory.exists()){
-            directory.mkdir();
+            directory.mkdirs();
         }
     }
+
+    /**
+     * Loader of the subscribers missing the caches.
+     */
+    @FunctionalInterface
+    interface Loader {
+
+        /**
+         * Loads a subscriber.
+         *
+         * @param email The email.
+         * @return The subscriber.
+         * @throws Exception if the subscriber couldn't be loaded.
+         */
+        Subscriber load(String email) throws Exception;
+    }
 }
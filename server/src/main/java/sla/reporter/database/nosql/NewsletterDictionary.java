@@ -0,0 +1,63 @@
+package sla.reporter.database.nosql;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Dictionary that encodes newsletter ids to dense ints.
+ *
+ * <p>There are only a few campaigns for millions of subscribers, so each distinct id is stored once and the
+ * {@link OffHeapSubscriberCache} keeps a four-byte code per subscriber.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ * @implNote Not thread safe, the caller is expected to synchronize.
+ */
+class NewsletterDictionary {
+
+    /**
+     * The code of each newsletter id.
+     */
+    private final Map<String, Integer> codes = new HashMap<>();
+    /**
+     * The newsletter id of each code.
+     */
+    private final List<String> values = new ArrayList<>();
+
+    /**
+     * Encodes the given newsletter id, assigning a new code if needed.
+     *
+     * @param newsletterId The newsletter id.
+     * @return The code.
+     */
+    int encode(final String newsletterId) {
+        final Integer code = this.codes.get(newsletterId);
+        if (code != null) {
+            return code;
+        }
+        final int newCode = this.values.size();
+        this.codes.put(newsletterId, newCode);
+        this.values.add(newsletterId);
+        return newCode;
+    }
+
+    /**
+     * Decodes the given code.
+     *
+     * @param code The code.
+     * @return The newsletter id.
+     */
+    String decode(final int code) {
+        return this.values.get(code);
+    }
+
+    /**
+     * Gets the number of distinct newsletter ids.
+     *
+     * @return The number of distinct newsletter ids.
+     */
+    int size() {
+        return this.values.size();
+    }
+}
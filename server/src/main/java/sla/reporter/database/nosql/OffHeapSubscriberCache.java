@@ -0,0 +1,517 @@
+package sla.reporter.database.nosql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Off-heap cache that keeps subscribers in a compact packed layout inside direct {@link ByteBuffer} slabs.
+ *
+ * <p>Each subscriber is stored as a single record:
+ * <pre>
+ * short  email length | email (ASCII)
+ * short  first name length, -1 if absent | first name (UTF-8)
+ * byte   gender ordinal
+ * byte   consent
+ * int    birthday as epoch day
+ * int    newsletter id code, see {@link NewsletterDictionary}
+ * long   subscription time as epoch milliseconds, {@link Long#MIN_VALUE} if absent
+ * </pre>
+ * Records are located through a primitive open-addressing index keyed by the email hash, so the cache holds no
+ * object per subscriber and {@link Subscriber} instances are only decoded on lookup.
+ *
+ * <p>The cache is split by email hash into segments, each with its own slabs, index and read-write lock, so that
+ * lookups never wait for each other and only wait for a write to the same segment.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ * @implNote Subscribers are immutable once written, so records are never updated. Once a segment has allocated its
+ *     share of the capacity, its oldest slab is evicted as a whole to make room for new subscribers.
+ */
+public class OffHeapSubscriberCache {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(OffHeapSubscriberCache.class);
+
+    /**
+     * The size of a slab in bytes.
+     */
+    static final int SLAB_SIZE = 4 * 1024 * 1024;
+    /**
+     * The fixed part of a record: two lengths, gender, consent, birthday, newsletter id code and subscription time.
+     */
+    private static final int FIXED_RECORD_SIZE = 2 + 2 + 1 + 1 + 4 + 4 + 8;
+    /**
+     * The subscription time of the subscribers subscribed before it was recorded.
+     */
+    private static final long ABSENT_TIME = Long.MIN_VALUE;
+    /**
+     * The initial number of index slots.
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+    /**
+     * The maximum number of segments, each segment keeping at least two slabs so that an eviction only drops part of
+     * its subscribers.
+     */
+    private static final int MAX_SEGMENTS = 16;
+
+    /**
+     * The segments, selected by the high bits of the email hash.
+     */
+    private final Segment[] segments;
+
+    /**
+     * Constructor.
+     *
+     * @param maxBytes The maximum number of bytes allocated off-heap.
+     */
+    public OffHeapSubscriberCache(final long maxBytes) {
+        final int maxSlabs = (int) Math.max(1, Math.min(Integer.MAX_VALUE, maxBytes / SLAB_SIZE));
+        final int segmentCount = Integer.highestOneBit(Math.max(1, Math.min(MAX_SEGMENTS, maxSlabs / 2)));
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            this.segments[i] = new Segment(maxSlabs / segmentCount);
+        }
+    }
+
+    /**
+     * Gets the subscriber with given email.
+     *
+     * @param email The email.
+     * @return The decoded subscriber, {@code null} if not cached.
+     */
+    public Subscriber get(final String email) {
+        final long hash = hash(email);
+        final Segment segment = segment(hash);
+        segment.lock.readLock().lock();
+        try {
+            final int slot = segment.probe(email, hash);
+            if (segment.addresses[slot] == 0) {
+                return null;
+            }
+            return segment.decode(segment.addresses[slot] - 1);
+        } finally {
+            segment.lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Adds the given subscriber, evicting the oldest subscribers of its segment if needed.
+     *
+     * @param subscriber The subscriber.
+     * @return {@code true} if the subscriber is cached, {@code false} if it could not be admitted.
+     */
+    public boolean put(final Subscriber subscriber) {
+        final String email = subscriber.getEmail();
+        if (email.length() > Short.MAX_VALUE || !isAscii(email)) {
+            return false;
+        }
+        final byte[] firstName = subscriber.optionalFirstName().isPresent()
+                ? subscriber.optionalFirstName().get().getBytes(StandardCharsets.UTF_8)
+                : null;
+        if (firstName != null && firstName.length > Short.MAX_VALUE) {
+            return false;
+        }
+        final long hash = hash(email);
+        final Segment segment = segment(hash);
+        segment.lock.writeLock().lock();
+        try {
+            final int slot = segment.probe(email, hash);
+            if (segment.addresses[slot] != 0) {
+                return true;
+            }
+            final int recordSize = FIXED_RECORD_SIZE + email.length() + (firstName == null ? 0 : firstName.length);
+            final long address = segment.allocate(recordSize);
+            segment.encode(address, subscriber, firstName);
+            // the eviction may have rebuilt the index
+            segment.insert(hash, address);
+            return true;
+        } finally {
+            segment.lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes every cached subscriber and releases the slabs.
+     */
+    public void clear() {
+        for (final Segment segment : this.segments) {
+            segment.lock.writeLock().lock();
+            try {
+                segment.clear();
+            } finally {
+                segment.lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Gets the number of cached subscribers.
+     *
+     * @return The number of cached subscribers.
+     */
+    public int size() {
+        int size = 0;
+        for (final Segment segment : this.segments) {
+            segment.lock.readLock().lock();
+            try {
+                size += segment.size;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Gets the number of bytes allocated off-heap.
+     *
+     * @return The number of allocated bytes.
+     */
+    public long allocatedBytes() {
+        long bytes = 0;
+        for (final Segment segment : this.segments) {
+            segment.lock.readLock().lock();
+            try {
+                bytes += (long) segment.slabs.size() * SLAB_SIZE;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return bytes;
+    }
+
+    /**
+     * Gets the number of subscribers evicted so far to make room for new ones.
+     *
+     * @return The number of evicted subscribers.
+     */
+    public long evictions() {
+        long evictions = 0;
+        for (final Segment segment : this.segments) {
+            segment.lock.readLock().lock();
+            try {
+                evictions += segment.evictions;
+            } finally {
+                segment.lock.readLock().unlock();
+            }
+        }
+        return evictions;
+    }
+
+    /**
+     * Gets the segment of the given email hash.
+     *
+     * @param hash The email hash.
+     * @return The segment.
+     */
+    private Segment segment(final long hash) {
+        // the index slots use the low bits
+        return this.segments[(int) (hash >>> 32) & (this.segments.length - 1)];
+    }
+
+    /**
+     * Checks whether the given string only holds ASCII characters.
+     *
+     * @param value The string.
+     * @return {@code true} if the string is ASCII, {@code false} otherwise.
+     */
+    private static boolean isAscii(final String value) {
+        for (int i = 0; i < value.length(); i++) {
+            if (value.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Hashes the given email with 64-bit FNV-1a followed by a finalizer mix.
+     *
+     * @param email The email.
+     * @return The email hash.
+     */
+    static long hash(final String email) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < email.length(); i++) {
+            hash ^= email.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    /**
+     * A share of the cache, guarded by its lock.
+     */
+    private static final class Segment {
+
+        /**
+         * The lock, read for lookups and written for additions.
+         */
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        /**
+         * The maximum number of slabs.
+         */
+        private final int maxSlabs;
+        /**
+         * The slabs, reused in a ring once {@link #maxSlabs} are allocated.
+         */
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        /**
+         * The slab being written.
+         */
+        private int current;
+        /**
+         * The write offset within the current slab.
+         */
+        private int offset;
+        /**
+         * The newsletter id dictionary.
+         */
+        private final NewsletterDictionary dictionary = new NewsletterDictionary();
+        /**
+         * The email hash of each index slot.
+         */
+        private long[] hashes = new long[INITIAL_CAPACITY];
+        /**
+         * The record address of each index slot, plus one so that {@code 0} marks an empty slot.
+         */
+        private long[] addresses = new long[INITIAL_CAPACITY];
+        /**
+         * The number of cached subscribers.
+         */
+        private int size;
+        /**
+         * The number of evicted subscribers.
+         */
+        private long evictions;
+
+        /**
+         * Constructor.
+         *
+         * @param maxSlabs The maximum number of slabs.
+         */
+        private Segment(final int maxSlabs) {
+            this.maxSlabs = maxSlabs;
+        }
+
+        /**
+         * Removes every cached subscriber and releases the slabs.
+         */
+        private void clear() {
+            this.slabs.clear();
+            this.current = 0;
+            this.offset = 0;
+            this.hashes = new long[INITIAL_CAPACITY];
+            this.addresses = new long[INITIAL_CAPACITY];
+            this.size = 0;
+        }
+
+        /**
+         * Finds the slot of the given email.
+         *
+         * @param email The email.
+         * @param hash The email hash.
+         * @return The slot holding the email, or the empty slot where it would be inserted.
+         */
+        private int probe(final String email, final long hash) {
+            final int mask = this.addresses.length - 1;
+            int slot = (int) hash & mask;
+            while (this.addresses[slot] != 0) {
+                if (this.hashes[slot] == hash && emailEquals(this.addresses[slot] - 1, email)) {
+                    return slot;
+                }
+                slot = (slot + 1) & mask;
+            }
+            return slot;
+        }
+
+        /**
+         * Indexes a new record, doubling the number of index slots if needed.
+         *
+         * @param hash The email hash.
+         * @param address The record address.
+         */
+        private void insert(final long hash, final long address) {
+            final int mask = this.addresses.length - 1;
+            int slot = (int) hash & mask;
+            while (this.addresses[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            this.hashes[slot] = hash;
+            this.addresses[slot] = address + 1;
+            this.size++;
+            if (this.size * 2 > this.addresses.length) {
+                reindex(this.addresses.length * 2, -1);
+            }
+        }
+
+        /**
+         * Rebuilds the index.
+         *
+         * @param capacity The number of index slots.
+         * @param evicted The slab whose records are dropped, {@code -1} if none.
+         */
+        private void reindex(final int capacity, final int evicted) {
+            final long[] oldHashes = this.hashes;
+            final long[] oldAddresses = this.addresses;
+            this.hashes = new long[capacity];
+            this.addresses = new long[capacity];
+            final int mask = capacity - 1;
+            for (int i = 0; i < oldAddresses.length; i++) {
+                if (oldAddresses[i] == 0) {
+                    continue;
+                }
+                if ((int) ((oldAddresses[i] - 1) >>> 32) == evicted) {
+                    this.size--;
+                    this.evictions++;
+                    continue;
+                }
+                int slot = (int) oldHashes[i] & mask;
+                while (this.addresses[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                this.hashes[slot] = oldHashes[i];
+                this.addresses[slot] = oldAddresses[i];
+            }
+        }
+
+        /**
+         * Allocates a record, evicting the oldest slab once every slab is allocated.
+         *
+         * @param recordSize The record size in bytes.
+         * @return The record address.
+         */
+        private long allocate(final int recordSize) {
+            if (this.slabs.isEmpty()) {
+                this.slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+            } else if (this.offset + recordSize > SLAB_SIZE) {
+                if (this.slabs.size() < this.maxSlabs) {
+                    this.slabs.add(ByteBuffer.allocateDirect(SLAB_SIZE));
+                    this.current = this.slabs.size() - 1;
+                } else {
+                    // the slab after the current one in the ring is the oldest
+                    this.current = (this.current + 1) % this.maxSlabs;
+                    final long evictions = this.evictions;
+                    reindex(this.addresses.length, this.current);
+                    if (evictions == 0) {
+                        LOGGER.info("Off-heap subscriber cache segment is full, evicting its oldest subscribers");
+                    }
+                    LOGGER.debug("Evicted {} subscribers from an off-heap slab", this.evictions - evictions);
+                }
+                this.offset = 0;
+            }
+            final long address = ((long) this.current << 32) | this.offset;
+            this.offset += recordSize;
+            return address;
+        }
+
+        /**
+         * Writes the record of the given subscriber.
+         *
+         * @param address The record address.
+         * @param subscriber The subscriber.
+         * @param firstName The UTF-8 first name, {@code null} if absent.
+         */
+        private void encode(final long address, final Subscriber subscriber, final byte[] firstName) {
+            final ByteBuffer slab = this.slabs.get((int) (address >>> 32));
+            int position = (int) address;
+            final String email = subscriber.getEmail();
+            slab.putShort(position, (short) email.length());
+            position += 2;
+            for (int i = 0; i < email.length(); i++) {
+                slab.put(position++, (byte) email.charAt(i));
+            }
+            if (firstName == null) {
+                slab.putShort(position, (short) -1);
+                position += 2;
+            } else {
+                slab.putShort(position, (short) firstName.length);
+                position += 2;
+                for (final byte b : firstName) {
+                    slab.put(position++, b);
+                }
+            }
+            slab.put(position++, (byte) subscriber.genderValue().ordinal());
+            slab.put(position++, (byte) (subscriber.hasConsent() ? 1 : 0));
+            slab.putInt(position, (int) subscriber.birthDayValue().toEpochDay());
+            position += 4;
+            slab.putInt(position, this.dictionary.encode(subscriber.getNewsletterId()));
+            position += 4;
+            slab.putLong(position, subscriber.optionalSubscribedAt().isPresent()
+                    ? subscriber.optionalSubscribedAt().get().toEpochMilli() : ABSENT_TIME);
+        }
+
+        /**
+         * Reads the record at the given address.
+         *
+         * @param address The record address.
+         * @return The decoded subscriber.
+         */
+        private Subscriber decode(final long address) {
+            final ByteBuffer slab = this.slabs.get((int) (address >>> 32));
+            int position = (int) address;
+            final byte[] email = new byte[slab.getShort(position)];
+            position += 2;
+            for (int i = 0; i < email.length; i++) {
+                email[i] = slab.get(position++);
+            }
+            final Subscriber.Builder builder = new Subscriber.Builder()
+                    .email(new String(email, StandardCharsets.US_ASCII));
+            final short firstNameLength = slab.getShort(position);
+            position += 2;
+            if (firstNameLength >= 0) {
+                final byte[] firstName = new byte[firstNameLength];
+                for (int i = 0; i < firstNameLength; i++) {
+                    firstName[i] = slab.get(position++);
+                }
+                builder.firstName(new String(firstName, StandardCharsets.UTF_8));
+            }
+            builder.gender(Gender.values()[slab.get(position++)]);
+            builder.consent(slab.get(position++) == 1);
+            builder.birthDay(LocalDate.ofEpochDay(slab.getInt(position)));
+            position += 4;
+            builder.newsletterId(this.dictionary.decode(slab.getInt(position)));
+            position += 4;
+            final long subscribedAt = slab.getLong(position);
+            if (subscribedAt != ABSENT_TIME) {
+                builder.subscribedAt(Instant.ofEpochMilli(subscribedAt));
+            }
+            return builder.build();
+        }
+
+        /**
+         * Compares the email of the record at the given address with the given email.
+         *
+         * @param address The record address.
+         * @param email The email.
+         * @return {@code true} if both emails are equal, {@code false} otherwise.
+         */
+        private boolean emailEquals(final long address, final String email) {
+            final ByteBuffer slab = this.slabs.get((int) (address >>> 32));
+            final int position = (int) address;
+            if (slab.getShort(position) != email.length()) {
+                return false;
+            }
+            for (int i = 0; i < email.length(); i++) {
+                if (slab.get(position + 2 + i) != email.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package sla.reporter.database.nosql;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import sla.reporter.utils.RegexUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Class that represents a point-in-time view of the storage, staged as hard links to the subscriber files.
+ *
+ * <p>Subscriber files are never modified once moved into the storage, so linking the files written before a
+ * watermark freezes a consistent view without copying data or holding the storage lock. The view stays valid
+ * whatever happens to the storage afterwards, until this snapshot is closed.
+ *
+ * <p>The archive keeps the write order and the modification times of the files, which the storage relies on to list
+ * its subscribers oldest first.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class StorageSnapshot implements AutoCloseable {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(StorageSnapshot.class);
+
+    /**
+     * The folder holding the links.
+     */
+    private final Path staging;
+    /**
+     * The emails of the subscribers in this snapshot, in write order.
+     */
+    private final List<String> emails;
+
+    /**
+     * Private constructor.
+     *
+     * @param staging The folder holding the links.
+     * @param emails The emails of the subscribers in this snapshot, in write order.
+     */
+    private StorageSnapshot(final Path staging, final List<String> emails) {
+        this.staging = staging;
+        this.emails = Collections.unmodifiableList(emails);
+    }
+
+    /**
+     * Stages a snapshot.
+     *
+     * @param storage The storage folder.
+     * @param staging The empty folder holding the links, on the same file system as the storage.
+     * @param emails The emails in write order.
+     * @param watermark The number of emails written before the snapshot.
+     * @return The snapshot.
+     * @throws IOException if a file couldn't be staged.
+     */
+    static StorageSnapshot stage(final Path storage, final Path staging, final Iterator<String> emails,
+                                 final long watermark) throws IOException {
+        final List<String> staged = new ArrayList<>();
+        try {
+            for (long i = 0; i < watermark; i++) {
+                final String email = emails.next();
+                final Path source = storage.resolve(email);
+                final Path link = staging.resolve(email);
+                try {
+                    Files.createLink(link, source);
+                } catch (final UnsupportedOperationException e) {
+                    Files.copy(source, link, StandardCopyOption.COPY_ATTRIBUTES);
+                }
+                staged.add(email);
+            }
+        } catch (final IOException | RuntimeException e) {
+            delete(staging);
+            throw e;
+        }
+        LOGGER.info("Staged snapshot of {} subscribers in {}", watermark, staging);
+        return new StorageSnapshot(staging, staged);
+    }
+
+    /**
+     * Gets the number of subscribers in this snapshot.
+     *
+     * @return The number of subscribers.
+     */
+    public long size() {
+        return this.emails.size();
+    }
+
+    /**
+     * Writes this snapshot as a zip archive holding one entry per subscriber file, in write order and stamped with
+     * the modification time of the file.
+     *
+     * @param output The output, which isn't closed.
+     * @throws IOException if the archive couldn't be written.
+     */
+    public void writeZip(final OutputStream output) throws IOException {
+        final ZipOutputStream zip = new ZipOutputStream(output);
+        for (final String email : this.emails) {
+            final Path file = this.staging.resolve(email);
+            final ZipEntry entry = new ZipEntry(email);
+            entry.setLastModifiedTime(Files.getLastModifiedTime(file));
+            zip.putNextEntry(entry);
+            Files.copy(file, zip);
+            zip.closeEntry();
+        }
+        zip.finish();
+    }
+
+    /**
+     * Extracts the subscriber files of an archive written by {@link #writeZip(OutputStream)}, restoring their
+     * modification times.
+     *
+     * <p>Zip entries only keep times to the second, so each file is stamped at least a millisecond after the previous
+     * one to keep the write order of files written within the same second.
+     *
+     * @param archive The archive.
+     * @param directory The directory the files are extracted to.
+     * @return The names of the extracted files, in write order.
+     * @throws IOException if the archive couldn't be read.
+     * @throws IllegalArgumentException if an entry isn't a subscriber file or would be extracted outside of the
+     *         directory.
+     */
+    static List<String> extract(final InputStream archive, final Path directory) throws IOException {
+        final Path root = directory.toAbsolutePath().normalize();
+        final List<String> names = new ArrayList<>();
+        long previousMillis = Long.MIN_VALUE;
+        final ZipInputStream zip = new ZipInputStream(archive);
+        for (ZipEntry entry = zip.getNextEntry(); entry != null; entry = zip.getNextEntry()) {
+            final Path target = root.resolve(entry.getName()).normalize();
+            // an entry such as ../../etc/passwd must not escape the directory
+            checkArgument(!entry.isDirectory() && root.equals(target.getParent())
+                    && RegexUtils.isEmailValid(target.getFileName().toString()),
+                    "Invalid snapshot entry: %s", entry.getName());
+            Files.copy(zip, target);
+            final long entryMillis = entry.getTime() < 0 ? System.currentTimeMillis() : entry.getTime();
+            previousMillis = previousMillis == Long.MIN_VALUE ? entryMillis : Math.max(entryMillis, previousMillis + 1);
+            Files.setLastModifiedTime(target, FileTime.fromMillis(previousMillis));
+            names.add(target.getFileName().toString());
+        }
+        return names;
+    }
+
+    /**
+     * Deletes the links of this snapshot.
+     */
+    @Override
+    public void close() {
+        try {
+            delete(this.staging);
+        } catch (final IOException e) {
+            LOGGER.error("Failed deleting snapshot: {}", this.staging, e);
+        }
+    }
+
+    /**
+     * Deletes a folder and its files.
+     *
+     * @param folder The folder.
+     * @throws IOException if a file couldn't be deleted.
+     */
+    static void delete(final Path folder) throws IOException {
+        if (!Files.exists(folder)) {
+            return;
+        }
+        try (final Stream<Path> paths = Files.walk(folder)) {
+            final Iterator<Path> iterator = paths.sorted(Comparator.reverseOrder()).iterator();
+            while (iterator.hasNext()) {
+                Files.delete(iterator.next());
+            }
+        }
+    }
+}
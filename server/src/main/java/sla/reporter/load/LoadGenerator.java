@@ -0,0 +1,231 @@
+package sla.reporter.load;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.http.HttpClient;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Load generator that drives the subscription API in open or closed loop and reports latency percentiles corrected
+ * for coordinated omission.
+ *
+ * <p>In open loop, requests are scheduled at a fixed rate and sent asynchronously, so a slow response never delays
+ * the next request. In closed loop, each client sends its next request once the previous one completed; when a rate
+ * per client is given the clients are paced and late requests are charged from their scheduled time.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public final class LoadGenerator {
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(LoadGenerator.class);
+
+    /**
+     * The run options.
+     */
+    private final LoadOptions options;
+    /**
+     * The request source.
+     */
+    private final Workload workload;
+    /**
+     * The collected latencies.
+     */
+    private final LoadReport report = new LoadReport();
+    /**
+     * The threads sending the requests.
+     */
+    private final ExecutorService executor;
+    /**
+     * The http client.
+     */
+    private final HttpClient client;
+
+    /**
+     * Constructor.
+     *
+     * @param options The run options.
+     */
+    private LoadGenerator(final LoadOptions options) {
+        this.options = options;
+        this.workload = new Workload(options);
+        this.executor = Executors.newFixedThreadPool(options.getClients());
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .executor(this.executor)
+                .build();
+    }
+
+    /**
+     * Method called from the operating system.
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final LoadOptions options;
+        try {
+            options = LoadOptions.parse(args);
+        } catch (final IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(LoadOptions.USAGE);
+            System.exit(2);
+            return;
+        }
+        LOGGER.info("Starting load: {}", options);
+        new LoadGenerator(options).run();
+    }
+
+    /**
+     * Runs the load and prints the report.
+     */
+    private void run() throws InterruptedException {
+        final long start = System.nanoTime();
+        final long measureFrom = start + TimeUnit.SECONDS.toNanos(this.options.getWarmupSeconds());
+        final long end = measureFrom + TimeUnit.SECONDS.toNanos(this.options.getDurationSeconds());
+        try {
+            if (this.options.getMode() == LoadOptions.Mode.OPEN) {
+                runOpenLoop(start, measureFrom, end);
+            } else {
+                runClosedLoop(start, measureFrom, end);
+            }
+        } finally {
+            this.executor.shutdownNow();
+        }
+        final boolean corrected = this.options.getMode() == LoadOptions.Mode.OPEN || this.options.getRate() > 0;
+        this.report.print(System.out, this.options.getDurationSeconds(), corrected);
+        if (this.report.getDropped() > 0) {
+            LOGGER.warn("Dropped {} requests at max in flight, the response times are understated",
+                    this.report.getDropped());
+        }
+    }
+
+    /**
+     * Sends requests at a fixed rate, regardless of the responses.
+     *
+     * @param start The start of the run.
+     * @param measureFrom The end of the warmup.
+     * @param end The end of the run.
+     */
+    private void runOpenLoop(final long start, final long measureFrom, final long end) throws InterruptedException {
+        final Random random = new Random(this.options.getSeed());
+        final Semaphore inFlight = new Semaphore(this.options.getMaxInFlight());
+        final double intervalNanos = TimeUnit.SECONDS.toNanos(1) / this.options.getRate();
+        for (long i = 0; ; i++) {
+            final long intended = start + (long) (i * intervalNanos);
+            if (intended >= end) {
+                break;
+            }
+            waitUntil(intended);
+            final Workload.Request request = this.workload.next(random);
+            final boolean measured = intended >= measureFrom;
+            if (!inFlight.tryAcquire()) {
+                if (measured) {
+                    this.report.drop();
+                }
+                continue;
+            }
+            final long sent = System.nanoTime();
+            this.client.sendAsync(request.httpRequest, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, error) -> {
+                        final long completed = System.nanoTime();
+                        inFlight.release();
+                        completed(request, response == null ? -1 : response.statusCode(),
+                                measured, intended, sent, completed);
+                    });
+        }
+        // let the requests in flight complete
+        if (!inFlight.tryAcquire(this.options.getMaxInFlight(), 30, TimeUnit.SECONDS)) {
+            LOGGER.warn("Requests still in flight after 30 seconds");
+        }
+    }
+
+    /**
+     * Sends requests from a fixed number of clients, each waiting for the previous response.
+     *
+     * @param start The start of the run.
+     * @param measureFrom The end of the warmup.
+     * @param end The end of the run.
+     */
+    private void runClosedLoop(final long start, final long measureFrom, final long end) throws InterruptedException {
+        final long intervalNanos = this.options.getRate() > 0
+                ? (long) (TimeUnit.SECONDS.toNanos(1) / this.options.getRate())
+                : 0;
+        final List<Thread> clients = new ArrayList<>(this.options.getClients());
+        for (int index = 0; index < this.options.getClients(); index++) {
+            final Random random = new Random(this.options.getSeed() + index);
+            // spread the paced clients over the interval
+            final long first = start + intervalNanos * index / this.options.getClients();
+            final Thread thread = new Thread(() -> {
+                long next = first;
+                while (!Thread.currentThread().isInterrupted()) {
+                    final long intended = intervalNanos > 0 ? next : System.nanoTime();
+                    if (intended >= end) {
+                        return;
+                    }
+                    waitUntil(intended);
+                    final Workload.Request request = this.workload.next(random);
+                    final long sent = System.nanoTime();
+                    int status;
+                    try {
+                        status = this.client.send(request.httpRequest, HttpResponse.BodyHandlers.discarding())
+                                .statusCode();
+                    } catch (final IOException e) {
+                        status = -1;
+                    } catch (final InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        return;
+                    }
+                    completed(request, status, intended >= measureFrom, intended, sent, System.nanoTime());
+                    next += intervalNanos;
+                }
+            }, "load-client-" + index);
+            clients.add(thread);
+            thread.start();
+        }
+        for (final Thread thread : clients) {
+            thread.join();
+        }
+    }
+
+    /**
+     * Handles a completed request.
+     *
+     * @param request The request.
+     * @param status The response status code, {@code -1} if the request failed.
+     * @param measured Whether the request was scheduled after the warmup.
+     * @param intended The time the request was scheduled to be sent.
+     * @param sent The time the request was actually sent.
+     * @param completed The time the response was received.
+     */
+    private void completed(final Workload.Request request, final int status, final boolean measured,
+                           final long intended, final long sent, final long completed) {
+        this.workload.completed(request, status);
+        if (measured) {
+            this.report.record(request.operation, intended, sent, completed,
+                    status != request.operation.getExpectedStatus());
+        }
+    }
+
+    /**
+     * Parks the calling thread until the given time.
+     *
+     * @param deadline The time in {@link System#nanoTime()} units.
+     */
+    private static void waitUntil(final long deadline) {
+        long remaining = deadline - System.nanoTime();
+        while (remaining > 0 && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(remaining);
+            remaining = deadline - System.nanoTime();
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package sla.reporter.load;
+
+import com.google.common.collect.ImmutableSet;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Class that represents the options of a {@link LoadGenerator} run, parsed from {@code --key=value} arguments.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class LoadOptions {
+
+    /**
+     * The usage printed on invalid arguments.
+     */
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Usage: java -cp <jar> sla.reporter.load.LoadGenerator [options]",
+            "  --url=<base url>          server to load (default http://localhost:8080)",
+            "  --mode=open|closed        fixed request rate or fixed number of clients (default open)",
+            "  --rate=<req/s>            open: total request rate, closed: rate per client, 0 = unpaced"
+                    + " (default 100)",
+            "  --clients=<n>             closed: concurrent clients, open: sender threads (default 16)",
+            "  --duration=<seconds>      measured duration (default 60)",
+            "  --warmup=<seconds>        duration discarded before measuring (default 10)",
+            "  --mix=read:<w>,write:<w>,duplicate:<w>  operation weights (default read:70,write:25,duplicate:5)",
+            "  --max-in-flight=<n>       open: requests allowed in flight before counting drops (default 10000)",
+            "  --seed=<long>             random seed (default current time)");
+
+    /**
+     * The known option keys, so that a misspelled option fails instead of silently running with the default.
+     */
+    private static final Set<String> KEYS = ImmutableSet.of(
+            "url", "mode", "rate", "clients", "duration", "warmup", "mix", "max-in-flight", "seed");
+
+    /**
+     * The load mode.
+     */
+    public enum Mode {
+        /**
+         * Requests are issued on a fixed schedule regardless of the responses.
+         */
+        OPEN,
+        /**
+         * A fixed number of clients issue a request after the previous one completed.
+         */
+        CLOSED
+    }
+
+    /**
+     * The base url of the server.
+     */
+    private final URI url;
+    /**
+     * The load mode.
+     */
+    private final Mode mode;
+    /**
+     * The request rate, total in open loop and per client in closed loop.
+     */
+    private final double rate;
+    /**
+     * The number of clients.
+     */
+    private final int clients;
+    /**
+     * The measured duration in seconds.
+     */
+    private final int durationSeconds;
+    /**
+     * The warmup duration in seconds.
+     */
+    private final int warmupSeconds;
+    /**
+     * The weight of each operation.
+     */
+    private final Map<Operation, Integer> mix;
+    /**
+     * The maximum number of requests in flight in open loop.
+     */
+    private final int maxInFlight;
+    /**
+     * The random seed.
+     */
+    private final long seed;
+
+    /**
+     * Private constructor.
+     *
+     * @param arguments The parsed arguments.
+     */
+    private LoadOptions(final Map<String, String> arguments) {
+        this.url = URI.create(arguments.getOrDefault("url", "http://localhost:8080"));
+        this.mode = Mode.valueOf(arguments.getOrDefault("mode", "open").toUpperCase());
+        this.rate = Double.parseDouble(arguments.getOrDefault("rate", "100"));
+        this.clients = Integer.parseInt(arguments.getOrDefault("clients", "16"));
+        this.durationSeconds = Integer.parseInt(arguments.getOrDefault("duration", "60"));
+        this.warmupSeconds = Integer.parseInt(arguments.getOrDefault("warmup", "10"));
+        this.mix = parseMix(arguments.getOrDefault("mix", "read:70,write:25,duplicate:5"));
+        this.maxInFlight = Integer.parseInt(arguments.getOrDefault("max-in-flight", "10000"));
+        this.seed = Long.parseLong(arguments.getOrDefault("seed", String.valueOf(System.nanoTime())));
+        checkArgument(this.mode == Mode.CLOSED || this.rate > 0, "Open loop needs a positive rate");
+        checkArgument(this.rate >= 0, "Rate can't be negative");
+        checkArgument(this.clients > 0, "Clients must be positive");
+        checkArgument(this.durationSeconds > 0, "Duration must be positive");
+        checkArgument(this.warmupSeconds >= 0, "Warmup can't be negative");
+        checkArgument(this.maxInFlight > 0, "Max in flight must be positive");
+    }
+
+    /**
+     * Parses the command line arguments.
+     *
+     * @param args The arguments formatted as {@code --key=value}.
+     * @return The options.
+     * @throws IllegalArgumentException if an argument is malformed, unknown or repeated.
+     */
+    public static LoadOptions parse(final String[] args) {
+        final Map<String, String> arguments = new HashMap<>();
+        for (final String arg : args) {
+            final int separator = arg.indexOf('=');
+            checkArgument(arg.startsWith("--") && separator > 2, "Malformed argument: %s", arg);
+            final String key = arg.substring(2, separator);
+            checkArgument(KEYS.contains(key), "Unknown option: --%s", key);
+            checkArgument(arguments.put(key, arg.substring(separator + 1)) == null, "Repeated option: --%s", key);
+        }
+        return new LoadOptions(arguments);
+    }
+
+    /**
+     * Parses the operation mix.
+     *
+     * @param mix The mix formatted as {@code operation:weight,...}.
+     * @return The weight of each operation.
+     */
+    private static Map<Operation, Integer> parseMix(final String mix) {
+        final Map<Operation, Integer> weights = new HashMap<>();
+        for (final String entry : mix.split(",")) {
+            final String[] parts = entry.split(":");
+            checkArgument(parts.length == 2, "Malformed mix entry: %s", entry);
+            final int weight = Integer.parseInt(parts[1].trim());
+            checkArgument(weight >= 0, "Weight can't be negative: %s", entry);
+            weights.put(Operation.valueOf(parts[0].trim().toUpperCase()), weight);
+        }
+        checkArgument(weights.values().stream().mapToInt(Integer::intValue).sum() > 0, "Mix can't be empty");
+        return weights;
+    }
+
+    /**
+     * Gets the base url of the server.
+     *
+     * @return The base url.
+     */
+    public URI getUrl() {
+        return this.url;
+    }
+
+    /**
+     * Gets the load mode.
+     *
+     * @return The load mode.
+     */
+    public Mode getMode() {
+        return this.mode;
+    }
+
+    /**
+     * Gets the request rate.
+     *
+     * @return The total request rate in open loop, the rate per client in closed loop.
+     */
+    public double getRate() {
+        return this.rate;
+    }
+
+    /**
+     * Gets the number of clients.
+     *
+     * @return The number of clients.
+     */
+    public int getClients() {
+        return this.clients;
+    }
+
+    /**
+     * Gets the measured duration.
+     *
+     * @return The measured duration in seconds.
+     */
+    public int getDurationSeconds() {
+        return this.durationSeconds;
+    }
+
+    /**
+     * Gets the warmup duration.
+     *
+     * @return The warmup duration in seconds.
+     */
+    public int getWarmupSeconds() {
+        return this.warmupSeconds;
+    }
+
+    /**
+     * Gets the weight of the given operation.
+     *
+     * @param operation The operation.
+     * @return The weight, {@code 0} if the operation is not part of the mix.
+     */
+    public int getWeight(final Operation operation) {
+        return this.mix.getOrDefault(operation, 0);
+    }
+
+    /**
+     * Gets the maximum number of requests in flight in open loop.
+     *
+     * @return The maximum number of requests in flight.
+     */
+    public int getMaxInFlight() {
+        return this.maxInFlight;
+    }
+
+    /**
+     * Gets the random seed.
+     *
+     * @return The random seed.
+     */
+    public long getSeed() {
+        return this.seed;
+    }
+
+    @Override
+    public String toString() {
+        return "LoadOptions{" +
+                "url=" + this.url +
+                ", mode=" + this.mode +
+                ", rate=" + this.rate +
+                ", clients=" + this.clients +
+                ", durationSeconds=" + this.durationSeconds +
+                ", warmupSeconds=" + this.warmupSeconds +
+                ", mix=" + this.mix +
+                ", maxInFlight=" + this.maxInFlight +
+                ", seed=" + this.seed +
+                '}';
+    }
+}
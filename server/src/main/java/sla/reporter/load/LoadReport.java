@@ -0,0 +1,175 @@
+package sla.reporter.load;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.io.PrintStream;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects the latencies of a {@link LoadGenerator} run and prints throughput and percentiles.
+ *
+ * <p>Two latencies are recorded for each request. The response time is measured from the moment the request was
+ * scheduled to be sent, so a stalled server is charged for every request it delayed and the percentiles are
+ * corrected for coordinated omission. The service time is measured from the moment the request was actually sent and
+ * is what a naive load tool would report.
+ *
+ * <p>Requests dropped because too many were in flight have no response time, so the report warns that its percentiles
+ * are understated whenever any was dropped.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+class LoadReport {
+
+    /**
+     * The reported percentiles.
+     */
+    private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99, 100};
+    /**
+     * The number of significant digits kept by the histograms.
+     */
+    private static final int SIGNIFICANT_DIGITS = 3;
+
+    /**
+     * The response time histogram of each operation, in microseconds.
+     */
+    private final Map<Operation, Histogram> responseTimes = new EnumMap<>(Operation.class);
+    /**
+     * The service time histogram of each operation, in microseconds.
+     */
+    private final Map<Operation, Histogram> serviceTimes = new EnumMap<>(Operation.class);
+    /**
+     * The number of unexpected responses of each operation.
+     */
+    private final Map<Operation, AtomicLong> errors = new EnumMap<>(Operation.class);
+    /**
+     * The number of requests that were not sent because too many were in flight.
+     */
+    private final AtomicLong dropped = new AtomicLong();
+
+    /**
+     * Constructor.
+     */
+    LoadReport() {
+        for (final Operation operation : Operation.values()) {
+            this.responseTimes.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            this.serviceTimes.put(operation, new ConcurrentHistogram(SIGNIFICANT_DIGITS));
+            this.errors.put(operation, new AtomicLong());
+        }
+    }
+
+    /**
+     * Records a completed request.
+     *
+     * @param operation The operation.
+     * @param intendedNanos The time the request was scheduled to be sent, in {@link System#nanoTime()} units.
+     * @param sentNanos The time the request was actually sent.
+     * @param completedNanos The time the response was received.
+     * @param error Whether the response was unexpected.
+     */
+    void record(final Operation operation, final long intendedNanos, final long sentNanos, final long completedNanos,
+                final boolean error) {
+        this.responseTimes.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(completedNanos - intendedNanos));
+        this.serviceTimes.get(operation).recordValue(TimeUnit.NANOSECONDS.toMicros(completedNanos - sentNanos));
+        if (error) {
+            this.errors.get(operation).incrementAndGet();
+        }
+    }
+
+    /**
+     * Records a request that was not sent.
+     */
+    void drop() {
+        this.dropped.incrementAndGet();
+    }
+
+    /**
+     * Gets the number of requests that were not sent.
+     *
+     * @return The number of dropped requests.
+     */
+    long getDropped() {
+        return this.dropped.get();
+    }
+
+    /**
+     * Prints the report.
+     *
+     * @param out The stream to print to.
+     * @param measuredSeconds The measured duration in seconds.
+     * @param corrected Whether the response times are corrected for coordinated omission.
+     */
+    void print(final PrintStream out, final double measuredSeconds, final boolean corrected) {
+        final Histogram allResponses = new Histogram(SIGNIFICANT_DIGITS);
+        final Histogram allServices = new Histogram(SIGNIFICANT_DIGITS);
+        long allErrors = 0;
+        for (final Operation operation : Operation.values()) {
+            final Histogram responses = this.responseTimes.get(operation);
+            if (responses.getTotalCount() == 0) {
+                continue;
+            }
+            allResponses.add(responses);
+            allServices.add(this.serviceTimes.get(operation));
+            allErrors += this.errors.get(operation).get();
+            printRow(out, operation.name(), responses, this.serviceTimes.get(operation),
+                    this.errors.get(operation).get(), measuredSeconds);
+        }
+        printRow(out, "TOTAL", allResponses, allServices, allErrors, measuredSeconds);
+        out.printf("dropped: %d%n", this.dropped.get());
+        if (this.dropped.get() > 0) {
+            out.printf("WARNING: %d requests were dropped at --max-in-flight and are missing from the response times,"
+                    + " which are understated; raise --max-in-flight or lower --rate%n", this.dropped.get());
+        }
+        if (!corrected) {
+            out.println("note: unpaced closed loop, response times are NOT corrected for coordinated omission,"
+                    + " set --rate to pace the clients");
+        }
+    }
+
+    /**
+     * Prints the throughput and percentiles of a single row.
+     *
+     * @param out The stream to print to.
+     * @param name The row name.
+     * @param responses The response time histogram.
+     * @param services The service time histogram.
+     * @param errors The number of unexpected responses.
+     * @param measuredSeconds The measured duration in seconds.
+     */
+    private static void printRow(final PrintStream out, final String name, final Histogram responses,
+                                 final Histogram services, final long errors, final double measuredSeconds) {
+        out.printf("%s: requests=%d throughput=%.1f req/s errors=%d%n",
+                name, responses.getTotalCount(), responses.getTotalCount() / measuredSeconds, errors);
+        printPercentiles(out, "  response time (ms)", responses);
+        printPercentiles(out, "  service time  (ms)", services);
+    }
+
+    /**
+     * Prints the percentiles of a histogram.
+     *
+     * @param out The stream to print to.
+     * @param label The label.
+     * @param histogram The histogram in microseconds.
+     */
+    private static void printPercentiles(final PrintStream out, final String label, final Histogram histogram) {
+        final StringBuilder builder = new StringBuilder(label);
+        for (final double percentile : PERCENTILES) {
+            final long micros = percentile == 100 ? histogram.getMaxValue() : histogram.getValueAtPercentile(percentile);
+            builder.append(String.format(" p%s=%.3f", percentile == 100 ? "max" : format(percentile), micros / 1000.0));
+        }
+        out.println(builder);
+    }
+
+    /**
+     * Formats a percentile without trailing zeros.
+     *
+     * @param percentile The percentile.
+     * @return The formatted percentile.
+     */
+    private static String format(final double percentile) {
+        return percentile == Math.rint(percentile) ? String.valueOf((long) percentile) : String.valueOf(percentile);
+    }
+}
@@ -0,0 +1,42 @@
+package sla.reporter.load;
+
+/**
+ * An enumeration that defines the operations issued by the {@link LoadGenerator}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public enum Operation {
+    /**
+     * Gets a previously added subscriber.
+     */
+    READ(200),
+    /**
+     * Adds a new subscriber.
+     */
+    WRITE(201),
+    /**
+     * Adds a previously added subscriber again.
+     */
+    DUPLICATE(400);
+
+    /**
+     * The status code expected from the server.
+     */
+    private final int expectedStatus;
+
+    /**
+     * Constructor.
+     */
+    Operation(final int expectedStatus) {
+        this.expectedStatus = expectedStatus;
+    }
+
+    /**
+     * Gets the status code expected from the server.
+     *
+     * @return The expected status code.
+     */
+    public int getExpectedStatus() {
+        return this.expectedStatus;
+    }
+}
@@ -0,0 +1,235 @@
+package sla.reporter.load;
+
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Generates the requests of a {@link LoadGenerator} run from randomized subscribers.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+class Workload {
+
+    /**
+     * The first names subscribers are drawn from.
+     */
+    private static final String[] FIRST_NAMES = {
+        "Jonh", "Maria", "Wei", "Fatima", "Lucas", "Emma", "Sheng", "Olga", "Ahmed", "Ana",
+        "Noah", "Yuki", "Liam", "Sofia", "Ivan", "Chloe", "Mateo", "Aisha", "Hugo", "Lea"
+    };
+    /**
+     * The email domains subscribers are drawn from.
+     */
+    private static final String[] DOMAINS = {
+        "gmail.com", "outlook.com", "yahoo.com", "example.com", "mail.example.org"
+    };
+    /**
+     * The number of distinct newsletters, i.e. campaigns.
+     */
+    private static final int NEWSLETTERS = 20;
+    /**
+     * The number of added subscribers kept for reads and duplicates.
+     */
+    private static final int POOL_SIZE = 1 << 16;
+    /**
+     * The number of draws of an added subscriber before giving up on slots not published yet.
+     */
+    private static final int MAX_DRAWS = 16;
+    /**
+     * The request timeout.
+     */
+    private static final Duration TIMEOUT = Duration.ofSeconds(30);
+
+    /**
+     * The subscription endpoint.
+     */
+    private final URI endpoint;
+    /**
+     * The operations, in the order of {@link #cumulativeWeights}.
+     */
+    private final Operation[] operations = Operation.values();
+    /**
+     * The cumulative weight of each operation.
+     */
+    private final int[] cumulativeWeights = new int[this.operations.length];
+    /**
+     * A prefix that keeps emails of different runs apart.
+     */
+    private final String runId = Long.toString(System.currentTimeMillis(), 36);
+    /**
+     * The sequence of generated emails.
+     */
+    private final AtomicLong sequence = new AtomicLong();
+    /**
+     * The most recently added subscribers.
+     */
+    private final AtomicReferenceArray<Subscriber> added = new AtomicReferenceArray<>(POOL_SIZE);
+    /**
+     * The number of added subscribers.
+     */
+    private final AtomicLong addedCount = new AtomicLong();
+
+    /**
+     * Constructor.
+     *
+     * @param options The run options.
+     */
+    Workload(final LoadOptions options) {
+        this.endpoint = options.getUrl().resolve("/api/subscription");
+        int sum = 0;
+        for (int i = 0; i < this.operations.length; i++) {
+            sum += options.getWeight(this.operations[i]);
+            this.cumulativeWeights[i] = sum;
+        }
+    }
+
+    /**
+     * Draws the next request.
+     *
+     * @param random The random source of the calling thread.
+     * @return The request.
+     */
+    Request next(final Random random) {
+        final Operation operation = drawOperation(random);
+        final long count = this.addedCount.get();
+        // reads and duplicates fall back to a write while nothing was added and published yet
+        final Subscriber previous = operation == Operation.WRITE || count == 0 ? null : drawAdded(random, count);
+        if (previous == null) {
+            return post(Operation.WRITE, randomSubscriber(random));
+        }
+        if (operation == Operation.DUPLICATE) {
+            return post(operation, previous);
+        }
+        return new Request(operation, previous, HttpRequest.newBuilder(
+                this.endpoint.resolve("/api/subscription/" + previous.getEmail()))
+                .timeout(TIMEOUT)
+                .GET()
+                .build());
+    }
+
+    /**
+     * Notifies the outcome of a request.
+     *
+     * @param request The request.
+     * @param status The response status code.
+     */
+    void completed(final Request request, final int status) {
+        if (request.operation == Operation.WRITE && status == Operation.WRITE.getExpectedStatus()) {
+            final long index = this.addedCount.getAndIncrement();
+            this.added.set((int) (index % POOL_SIZE), request.subscriber);
+        }
+    }
+
+    /**
+     * Draws an operation according to the mix.
+     *
+     * @param random The random source.
+     * @return The operation.
+     */
+    private Operation drawOperation(final Random random) {
+        final int draw = random.nextInt(this.cumulativeWeights[this.cumulativeWeights.length - 1]);
+        for (int i = 0; i < this.cumulativeWeights.length; i++) {
+            if (draw < this.cumulativeWeights[i]) {
+                return this.operations[i];
+            }
+        }
+        return Operation.WRITE;
+    }
+
+    /**
+     * Draws a previously added subscriber.
+     *
+     * @param random The random source.
+     * @param count The number of added subscribers.
+     * @return The subscriber, or {@code null} if the drawn slots were not published yet.
+     */
+    private Subscriber drawAdded(final Random random, final long count) {
+        final int bound = (int) Math.min(count, POOL_SIZE);
+        for (int draw = 0; draw < MAX_DRAWS; draw++) {
+            // the slot may not be published yet
+            final Subscriber subscriber = this.added.get(random.nextInt(bound));
+            if (subscriber != null) {
+                return subscriber;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Creates a random subscriber with a unique email.
+     *
+     * @param random The random source.
+     * @return The subscriber.
+     */
+    private Subscriber randomSubscriber(final Random random) {
+        final String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        final String email = firstName.toLowerCase() + '.' + this.runId
+                + Long.toString(this.sequence.incrementAndGet(), 36)
+                + '@' + DOMAINS[random.nextInt(DOMAINS.length)];
+        final Subscriber.Builder builder = new Subscriber.Builder()
+                .email(email)
+                .gender(Gender.values()[random.nextInt(Gender.values().length)])
+                .birthDay(LocalDate.of(1950, 1, 1).plusDays(random.nextInt(58 * 365)))
+                .consent(random.nextInt(10) < 8)
+                .newsletterId("newsletter-" + random.nextInt(NEWSLETTERS));
+        if (random.nextInt(10) < 9) {
+            builder.firstName(firstName);
+        }
+        return builder.build();
+    }
+
+    /**
+     * Creates the request adding the given subscriber.
+     *
+     * @param operation The operation.
+     * @param subscriber The subscriber.
+     * @return The request.
+     */
+    private Request post(final Operation operation, final Subscriber subscriber) {
+        return new Request(operation, subscriber, HttpRequest.newBuilder(this.endpoint)
+                .timeout(TIMEOUT)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(subscriber.getJsonObject().toJSONString()))
+                .build());
+    }
+
+    /**
+     * A request together with the operation and the subscriber it was generated from.
+     */
+    static final class Request {
+
+        /**
+         * The operation.
+         */
+        final Operation operation;
+        /**
+         * The subscriber.
+         */
+        final Subscriber subscriber;
+        /**
+         * The http request.
+         */
+        final HttpRequest httpRequest;
+
+        /**
+         * Constructor.
+         *
+         * @param operation The operation.
+         * @param subscriber The subscriber.
+         * @param httpRequest The http request.
+         */
+        private Request(final Operation operation, final Subscriber subscriber, final HttpRequest httpRequest) {
+            this.operation = operation;
+            this.subscriber = subscriber;
+            this.httpRequest = httpRequest;
+        }
+    }
+}
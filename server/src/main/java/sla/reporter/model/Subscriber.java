@@ -6,13 +6,16 @@ import org.json.simple.JSONObject;
 import sla.reporter.utils.RegexUtils;
 
 import java.io.Serializable;
+import java.text.ParsePosition;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.Month;
+import java.time.Year;
 import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoField;
+import java.time.temporal.TemporalAccessor;
 import java.util.Objects;
 
-import static com.google.common.base.Preconditions.checkArgument;
-import static com.google.common.base.Preconditions.checkNotNull;
-
 /**
  * Class that represents object of Subscriber.
  *
@@ -46,6 +49,10 @@ public class Subscriber implements Serializable {
      * The newsletter id corresponding the campaign.
      */
     private final String newsletterId;
+    /**
+     * The optional time the subscriber subscribed at, assigned by the server and absent for older subscribers.
+     */
+    private final Optional<Instant> subscribedAt;
 
     /**
      * The date formatter used to convert birthday to and from String.
@@ -64,6 +71,7 @@ public class Subscriber implements Serializable {
         this.birthDay = builder.birthDay;
         this.consent = builder.consent;
         this.newsletterId = builder.newsletterId;
+        this.subscribedAt = builder.subscribedAt;
     }
     /**
      * Gets the email.
@@ -113,6 +121,55 @@ public class Subscriber implements Serializable {
     public String getNewsletterId() {
         return this.newsletterId;
     }
+    /**
+     * Gets the time the subscriber subscribed at.
+     *
+     * @return The ISO-8601 instant, {@code null} for older subscribers.
+     */
+    public String getSubscribedAt() {
+        return this.subscribedAt.isPresent() ? this.subscribedAt.get().toString() : null;
+    }
+
+    /**
+     * Gets the optional first name, without falling back to a default value.
+     *
+     * @return The optional first name.
+     */
+    public Optional<String> optionalFirstName() {
+        return this.firstName;
+    }
+    /**
+     * Gets the {@link Gender gender} value.
+     *
+     * @return The {@link Gender gender}.
+     */
+    public Gender genderValue() {
+        return this.gender;
+    }
+    /**
+     * Gets the birthday value.
+     *
+     * @return The birthday.
+     */
+    public LocalDate birthDayValue() {
+        return this.birthDay;
+    }
+    /**
+     * Gets the consent value.
+     *
+     * @return {@code true} if the subscriber consents, {@code false} otherwise.
+     */
+    public boolean hasConsent() {
+        return this.consent;
+    }
+    /**
+     * Gets the optional time the subscriber subscribed at.
+     *
+     * @return The optional instant, absent for older subscribers.
+     */
+    public Optional<Instant> optionalSubscribedAt() {
+        return this.subscribedAt;
+    }
 
     @Override
     public boolean equals(Object o) {
@@ -139,6 +196,7 @@ public class Subscriber implements Serializable {
                 ", birthDay=" + this.birthDay.format(FORMATTER) +
                 ", consent=" + this.consent +
                 ", newsletterId='" + this.newsletterId + '\'' +
+                ", subscribedAt=" + this.subscribedAt.orNull() +
                 '}';
     }
 
@@ -156,6 +214,9 @@ public class Subscriber implements Serializable {
         jsonObject.put("birthDay", this.birthDay.format(FORMATTER));
         jsonObject.put("consent", String.valueOf(this.consent));
         jsonObject.put("newsletterId", this.newsletterId);
+        if (this.subscribedAt.isPresent()) {
+            jsonObject.put("subscribedAt", this.subscribedAt.get().toString());
+        }
         return jsonObject;
     }
 
@@ -164,6 +225,11 @@ public class Subscriber implements Serializable {
      */
     public static class Builder {
 
+        /**
+         * The number of validated fields, plus the payload itself.
+         */
+        private static final int VALIDATED_FIELDS = 8;
+
         /**
          * The subscriber email.
          */
@@ -194,6 +260,12 @@ public class Subscriber implements Serializable {
          * The newsletter id corresponding the campaign.
          */
         private String newsletterId;
+        /**
+         * The optional time the subscriber subscribed at.
+         *
+         * @implSpec By default the optional is absent.
+         */
+        private Optional<Instant> subscribedAt = Optional.absent();
 
         /**
          * Sets the email.
@@ -249,39 +321,223 @@ public class Subscriber implements Serializable {
             this.newsletterId = newsletterId;
             return this;
         }
+        /**
+         * Sets the time the subscriber subscribed at.
+         *
+         * @return This builder instance.
+         */
+        public Builder subscribedAt(final Instant subscribedAt) {
+            this.subscribedAt = Optional.of(subscribedAt);
+            return this;
+        }
         /**
          * Builds a new {@link Subscriber} from the information supplied to this {@link Subscriber.Builder}.
          *
          * @return A new subscriber instance.
+         * @throws ValidationException if a value is missing or invalid.
          */
         public Subscriber build() {
-            checkNotNull(this.email, "Email can't be null");
-            checkArgument(RegexUtils.isEmailValid(this.email), "Email is not valid");
-            checkNotNull(this.birthDay, "Birthday can't be null");
-            checkNotNull(this.newsletterId, "NewsletterId can't be null");
+            final ValidationResult result = new ValidationResult(VALIDATED_FIELDS);
+            if (this.email == null) {
+                result.reject("email", "Email can't be null");
+            } else if (!RegexUtils.isEmailValid(this.email)) {
+                result.reject("email", "Email is not valid");
+            }
+            if (this.birthDay == null) {
+                result.reject("birthDay", "Birthday can't be null");
+            }
+            if (this.newsletterId == null) {
+                result.reject("newsletterId", "NewsletterId can't be null");
+            }
+            if (!result.isValid()) {
+                throw new ValidationException(result);
+            }
             return new Subscriber(this);
         }
 
         /**
-         * Fill a builder with attribute values from the provided {@link JSONObject}.
+         * Fill a builder with attribute values from the provided {@link JSONObject}, including the optional
+         * subscription time of a stored subscriber.
          *
          * @param jsonObject The expected{@link JSONObject}.
          * @return This builder instance.
+         * @throws ValidationException if a value is missing or invalid.
          */
         public Builder fromJsonObject(final JSONObject jsonObject) {
-            checkNotNull(jsonObject.get("email"), "Email can't be null");
-            checkNotNull(jsonObject.get("firstName"), "Birthday can't be null");
-            checkNotNull(jsonObject.get("gender"), "Birthday can't be null");
-            checkNotNull(jsonObject.get("birthDay"), "Birthday can't be null");
-            checkNotNull(jsonObject.get("consent"), "Birthday can't be null");
-            checkNotNull(jsonObject.get("newsletterId"), "NewsletterId can't be null");
-            this.email = (String) jsonObject.get("email");
-            this.firstName = Optional.of((String) jsonObject.get("firstName"));
-            this.gender = Gender.fromString((String) jsonObject.get("gender")).or(Gender.NONE);
-            this.birthDay = LocalDate.parse((String) jsonObject.get("birthDay"), FORMATTER);
-            this.consent = Boolean.parseBoolean((String) jsonObject.get("consent"));
-            this.newsletterId = (String) jsonObject.get("newsletterId");
+            final ValidationResult result = validate(jsonObject);
+            if (jsonObject != null) {
+                validateSubscribedAt(jsonObject, result);
+            }
+            if (!result.isValid()) {
+                throw new ValidationException(result);
+            }
             return this;
         }
+
+        /**
+         * Fill a builder with the valid attribute values from the provided {@link JSONObject}, collecting the errors
+         * of the others instead of throwing.
+         *
+         * <p>The consent may be a boolean or a {@code "true"}/{@code "false"} string, the birthday must be formatted as
+         * {@code yyyy-MM-dd} and an unknown gender falls back to {@link Gender#NONE}. The subscription time is assigned
+         * by the server, so it is ignored here and only read back from the storage by
+         * {@link #fromJsonObject(JSONObject)}.
+         *
+         * @param jsonObject The expected {@link JSONObject}, may be {@code null}.
+         * @return The field errors, valid if this builder can be built.
+         */
+        public ValidationResult validate(final JSONObject jsonObject) {
+            final ValidationResult result = new ValidationResult(VALIDATED_FIELDS);
+            if (jsonObject == null) {
+                result.reject("body", "Body can't be null");
+                return result;
+            }
+            final String email = string(jsonObject, "email", "Email can't be null", "Email must be a string",
+                    result);
+            if (email != null) {
+                if (RegexUtils.isEmailValid(email)) {
+                    this.email = email;
+                } else {
+                    result.reject("email", "Email is not valid");
+                }
+            }
+            final String firstName = string(jsonObject, "firstName", "FirstName can't be null",
+                    "FirstName must be a string", result);
+            if (firstName != null) {
+                this.firstName = Optional.of(firstName);
+            }
+            final String gender = string(jsonObject, "gender", "Gender can't be null", "Gender must be a string",
+                    result);
+            if (gender != null) {
+                this.gender = Gender.fromString(gender).or(Gender.NONE);
+            }
+            final String birthDay = string(jsonObject, "birthDay", "Birthday can't be null",
+                    "Birthday must be a string", result);
+            if (birthDay != null) {
+                final LocalDate date = parseDate(birthDay);
+                if (date != null) {
+                    this.birthDay = date;
+                } else {
+                    result.reject("birthDay", "Birthday must be a valid yyyy-MM-dd date");
+                }
+            }
+            final Object consent = jsonObject.get("consent");
+            if (consent == null) {
+                result.reject("consent", "Consent can't be null");
+            } else if (consent instanceof Boolean) {
+                this.consent = (Boolean) consent;
+            } else if ("true".equalsIgnoreCase(String.valueOf(consent))) {
+                this.consent = true;
+            } else if ("false".equalsIgnoreCase(String.valueOf(consent))) {
+                this.consent = false;
+            } else {
+                result.reject("consent", "Consent must be true or false");
+            }
+            final String newsletterId = string(jsonObject, "newsletterId", "NewsletterId can't be null",
+                    "NewsletterId must be a string", result);
+            if (newsletterId != null) {
+                this.newsletterId = newsletterId;
+            }
+            return result;
+        }
+
+        /**
+         * Fill the optional subscription time from the provided {@link JSONObject}, collecting its error if malformed.
+         *
+         * @param jsonObject The expected {@link JSONObject}.
+         * @param result The field errors.
+         */
+        private void validateSubscribedAt(final JSONObject jsonObject, final ValidationResult result) {
+            final Object subscribedAt = jsonObject.get("subscribedAt");
+            if (subscribedAt != null) {
+                final Instant instant = subscribedAt instanceof String ? parseInstant((String) subscribedAt) : null;
+                if (instant != null) {
+                    this.subscribedAt = Optional.of(instant);
+                } else {
+                    result.reject("subscribedAt", "SubscribedAt must be an ISO-8601 instant");
+                }
+            }
+        }
+
+        /**
+         * Gets a string value, rejecting it when missing or of another type.
+         *
+         * @param jsonObject The {@link JSONObject}.
+         * @param field The field.
+         * @param nullMessage The error message of a missing value.
+         * @param typeMessage The error message of a value of another type.
+         * @param result The field errors.
+         * @return The value, or {@code null} if it was rejected.
+         */
+        private static String string(final JSONObject jsonObject, final String field, final String nullMessage,
+                                     final String typeMessage, final ValidationResult result) {
+            final Object value = jsonObject.get(field);
+            if (value == null) {
+                result.reject(field, nullMessage);
+                return null;
+            }
+            if (!(value instanceof String)) {
+                result.reject(field, typeMessage);
+                return null;
+            }
+            return (String) value;
+        }
+    }
+
+    /**
+     * Parses a date formatted as {@code yyyy-MM-dd} without throwing, unlike {@link LocalDate#parse}.
+     *
+     * @param text The formatted date.
+     * @return The date, or {@code null} if the text isn't a valid date.
+     */
+    private static LocalDate parseDate(final String text) {
+        if (text.length() != 10 || text.charAt(4) != '-' || text.charAt(7) != '-') {
+            return null;
+        }
+        final int year = digits(text, 0, 4);
+        final int month = digits(text, 5, 7);
+        final int day = digits(text, 8, 10);
+        if (year < 0 || month < 1 || month > 12 || day < 1 || day > Month.of(month).length(Year.isLeap(year))) {
+            return null;
+        }
+        return LocalDate.of(year, month, day);
+    }
+
+    /**
+     * Parses an ISO-8601 instant such as {@code 2020-09-13T12:26:40Z} without throwing, unlike {@link Instant#parse}.
+     *
+     * @param text The formatted instant.
+     * @return The instant, or {@code null} if the text isn't a valid instant.
+     */
+    private static Instant parseInstant(final String text) {
+        final ParsePosition position = new ParsePosition(0);
+        final TemporalAccessor parsed = DateTimeFormatter.ISO_INSTANT.parseUnresolved(text, position);
+        if (parsed == null || position.getErrorIndex() >= 0 || position.getIndex() != text.length()
+                || !parsed.isSupported(ChronoField.INSTANT_SECONDS)) {
+            return null;
+        }
+        final long nanos = parsed.isSupported(ChronoField.NANO_OF_SECOND)
+                ? parsed.getLong(ChronoField.NANO_OF_SECOND) : 0;
+        return Instant.ofEpochSecond(parsed.getLong(ChronoField.INSTANT_SECONDS), nanos);
+    }
+
+    /**
+     * Parses a non negative decimal number.
+     *
+     * @param text The text.
+     * @param from The index of the first digit, inclusive.
+     * @param to The index of the last digit, exclusive.
+     * @return The number, or {@code -1} if a character isn't a digit.
+     */
+    private static int digits(final String text, final int from, final int to) {
+        int value = 0;
+        for (int i = from; i < to; i++) {
+            final char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
     }
 }
@@ -0,0 +1,41 @@
+package sla.reporter.model;
+
+/**
+ * Exception thrown when a {@link Subscriber} can't be built from invalid values.
+ *
+ * <p>Invalid payloads are expected traffic rather than bugs, so the exception neither fills in its stack trace nor
+ * records suppressed exceptions: throwing it costs about as much as allocating it.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class ValidationException extends RuntimeException {
+
+    /**
+     * The field errors.
+     */
+    private final transient ValidationResult result;
+
+    /**
+     * Constructor.
+     *
+     * @param result The field errors, at least one.
+     */
+    public ValidationException(final ValidationResult result) {
+        super(null, null, false, false);
+        this.result = result;
+    }
+
+    @Override
+    public String getMessage() {
+        return this.result.toString();
+    }
+
+    /**
+     * Gets the field errors.
+     *
+     * @return The field errors.
+     */
+    public ValidationResult getResult() {
+        return this.result;
+    }
+}
@@ -0,0 +1,132 @@
+package sla.reporter.model;
+
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+
+/**
+ * Class that collects the field errors of a validation without throwing.
+ *
+ * <p>The errors are kept in arrays allocated once with the number of validated fields, and the messages are constants,
+ * so rejecting a payload allocates nothing beyond this result.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public final class ValidationResult {
+
+    /**
+     * The rejected fields.
+     */
+    private final String[] fields;
+    /**
+     * The message of each rejected field.
+     */
+    private final String[] messages;
+    /**
+     * The number of errors.
+     */
+    private int size;
+
+    /**
+     * Constructor.
+     *
+     * @param capacity The maximum number of errors kept, usually the number of validated fields.
+     */
+    public ValidationResult(final int capacity) {
+        this.fields = new String[capacity];
+        this.messages = new String[capacity];
+    }
+
+    /**
+     * Rejects a field, errors beyond the capacity are dropped.
+     *
+     * @param field The field.
+     * @param message The error message.
+     */
+    public void reject(final String field, final String message) {
+        if (this.size < this.fields.length) {
+            this.fields[this.size] = field;
+            this.messages[this.size] = message;
+            this.size++;
+        }
+    }
+
+    /**
+     * Checks whether a field was rejected.
+     *
+     * @param field The field.
+     * @return {@code true} if the field was rejected, {@code false} otherwise.
+     */
+    public boolean isRejected(final String field) {
+        for (int i = 0; i < this.size; i++) {
+            if (this.fields[i].equals(field)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Checks whether no field was rejected.
+     *
+     * @return {@code true} if no field was rejected, {@code false} otherwise.
+     */
+    public boolean isValid() {
+        return this.size == 0;
+    }
+
+    /**
+     * Gets the number of errors.
+     *
+     * @return The number of errors.
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * Gets the field of an error.
+     *
+     * @param index The error index.
+     * @return The rejected field.
+     */
+    public String getField(final int index) {
+        return this.fields[index];
+    }
+
+    /**
+     * Gets the message of an error.
+     *
+     * @param index The error index.
+     * @return The error message.
+     */
+    public String getMessage(final int index) {
+        return this.messages[index];
+    }
+
+    /**
+     * Gets {@link JSONObject} from the errors, as returned to the clients.
+     *
+     * @return The {@link JSONObject} holding an {@code errors} array of {@code field} and {@code message}.
+     */
+    public JSONObject toJsonObject() {
+        final JSONArray errors = new JSONArray();
+        for (int i = 0; i < this.size; i++) {
+            final JSONObject error = new JSONObject();
+            error.put("field", this.fields[i]);
+            error.put("message", this.messages[i]);
+            errors.add(error);
+        }
+        final JSONObject jsonObject = new JSONObject();
+        jsonObject.put("errors", errors);
+        return jsonObject;
+    }
+
+    @Override
+    public String toString() {
+        final StringBuilder builder = new StringBuilder("ValidationResult{");
+        for (int i = 0; i < this.size; i++) {
+            builder.append(i == 0 ? "" : ", ").append(this.fields[i]).append('=').append(this.messages[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
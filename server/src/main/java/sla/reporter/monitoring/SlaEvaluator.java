@@ -0,0 +1,139 @@
+package sla.reporter.monitoring;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongSupplier;
+
+/**
+ * Enum singleton with a single-element used to evaluate the {@link SloDefinition service level objectives}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public enum SlaEvaluator {
+
+    /**
+     * The instance.
+     */
+    INSTANCE;
+
+    /**
+     * Logger.
+     */
+    private static final Logger LOGGER = LoggerFactory.getLogger(SlaEvaluator.class);
+
+    /**
+     * The objectives and their windows by endpoint.
+     */
+    private final Map<String, Tracker> trackers = new ConcurrentHashMap<>();
+
+    /**
+     * The clock in milliseconds.
+     */
+    private volatile LongSupplier clock = System::currentTimeMillis;
+
+    /**
+     * Registers an objective, replacing the one of the same endpoint if any.
+     *
+     * @param slo The objective.
+     */
+    public void register(final SloDefinition slo) {
+        this.trackers.put(slo.getEndpoint(), new Tracker(slo));
+        LOGGER.info("Registered {}", slo);
+    }
+
+    /**
+     * Removes the objective of the given endpoint if any, its requests are then ignored.
+     *
+     * @param endpoint The endpoint, formatted as {@code <METHOD> <path template>}.
+     */
+    public void unregister(final String endpoint) {
+        if (this.trackers.remove(endpoint) != null) {
+            LOGGER.info("Unregistered {}", endpoint);
+        }
+    }
+
+    /**
+     * Records a completed request, requests of endpoints without objective are ignored.
+     *
+     * @param endpoint The endpoint, formatted as {@code <METHOD> <path template>}.
+     * @param latencyMillis The request latency in milliseconds.
+     * @param error Whether the request failed.
+     */
+    public void record(final String endpoint, final long latencyMillis, final boolean error) {
+        final Tracker tracker = this.trackers.get(endpoint);
+        if (tracker == null) {
+            return;
+        }
+        final boolean slow = latencyMillis > tracker.slo.getLatencyThresholdMillis();
+        tracker.window.record(nowSecond(), latencyMillis, error, slow);
+    }
+
+    /**
+     * Evaluates every registered objective.
+     *
+     * @return The report of each endpoint.
+     */
+    public List<SlaReport> evaluate() {
+        final long now = nowSecond();
+        final List<SlaReport> reports = new ArrayList<>(this.trackers.size());
+        for (final Tracker tracker : this.trackers.values()) {
+            reports.add(new SlaReport(tracker.slo, tracker.window.sum(now)));
+        }
+        return reports;
+    }
+
+    /**
+     * Removes every registered objective.
+     */
+    void clear() {
+        this.trackers.clear();
+    }
+
+    /**
+     * Sets the clock.
+     *
+     * @param clock The clock in milliseconds.
+     */
+    void setClock(final LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Gets the current epoch second.
+     *
+     * @return The current epoch second.
+     */
+    private long nowSecond() {
+        return this.clock.getAsLong() / 1000;
+    }
+
+    /**
+     * An objective together with its window.
+     */
+    private static final class Tracker {
+
+        /**
+         * The objective.
+         */
+        private final SloDefinition slo;
+        /**
+         * The window.
+         */
+        private final SlidingWindow window;
+
+        /**
+         * Constructor.
+         *
+         * @param slo The objective.
+         */
+        private Tracker(final SloDefinition slo) {
+            this.slo = slo;
+            this.window = new SlidingWindow(slo.getWindowSeconds());
+        }
+    }
+}
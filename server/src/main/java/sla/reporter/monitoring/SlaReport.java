@@ -0,0 +1,171 @@
+package sla.reporter.monitoring;
+
+/**
+ * Class that represents the compliance of a single endpoint with its {@link SloDefinition}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ * @implNote A burn rate of {@code 1} consumes the error budget exactly at the end of the window, a remaining error
+ *     budget below {@code 0} means the budget is exhausted.
+ */
+public class SlaReport {
+
+    /**
+     * The evaluated objective.
+     */
+    private final SloDefinition slo;
+    /**
+     * The window totals.
+     */
+    private final SlidingWindow.Totals totals;
+
+    /**
+     * Constructor.
+     *
+     * @param slo The evaluated objective.
+     * @param totals The window totals.
+     */
+    SlaReport(final SloDefinition slo, final SlidingWindow.Totals totals) {
+        this.slo = slo;
+        this.totals = totals;
+    }
+
+    /**
+     * Gets the endpoint.
+     *
+     * @return The endpoint.
+     */
+    public String getEndpoint() {
+        return this.slo.getEndpoint();
+    }
+
+    /**
+     * Gets the size of the evaluation window.
+     *
+     * @return The size of the evaluation window in seconds.
+     */
+    public int getWindowSeconds() {
+        return this.slo.getWindowSeconds();
+    }
+
+    /**
+     * Gets the number of requests within the window.
+     *
+     * @return The number of requests.
+     */
+    public long getRequests() {
+        return this.totals.total;
+    }
+
+    /**
+     * Gets the number of failed requests within the window.
+     *
+     * @return The number of failed requests.
+     */
+    public long getErrors() {
+        return this.totals.errors;
+    }
+
+    /**
+     * Gets the latency threshold.
+     *
+     * @return The latency threshold in milliseconds.
+     */
+    public long getLatencyThresholdMillis() {
+        return this.slo.getLatencyThresholdMillis();
+    }
+
+    /**
+     * Gets the latency objective.
+     *
+     * @return The latency objective.
+     */
+    public double getLatencyObjective() {
+        return this.slo.getLatencyObjective();
+    }
+
+    /**
+     * Gets the estimated latency at the objective quantile.
+     *
+     * @return The upper bound in milliseconds of the histogram bin holding the objective quantile.
+     */
+    public long getLatencyAtObjectiveMillis() {
+        return this.totals.latencyAt(this.slo.getLatencyObjective());
+    }
+
+    /**
+     * Gets the latency burn rate.
+     *
+     * @return The ratio between the observed and the allowed fraction of slow requests.
+     */
+    public double getLatencyBurnRate() {
+        return burnRate(this.totals.slow, this.slo.getLatencyObjective());
+    }
+
+    /**
+     * Gets the remaining latency error budget.
+     *
+     * @return The fraction of the latency error budget left within the window.
+     */
+    public double getLatencyErrorBudgetRemaining() {
+        return 1 - getLatencyBurnRate();
+    }
+
+    /**
+     * Gets the availability objective.
+     *
+     * @return The availability objective.
+     */
+    public double getAvailabilityObjective() {
+        return this.slo.getAvailabilityObjective();
+    }
+
+    /**
+     * Gets the observed availability.
+     *
+     * @return The fraction of successful requests, {@code 1} if there is no request.
+     */
+    public double getAvailability() {
+        return this.totals.total == 0 ? 1 : 1 - (double) this.totals.errors / this.totals.total;
+    }
+
+    /**
+     * Gets the availability burn rate.
+     *
+     * @return The ratio between the observed and the allowed fraction of failed requests.
+     */
+    public double getAvailabilityBurnRate() {
+        return burnRate(this.totals.errors, this.slo.getAvailabilityObjective());
+    }
+
+    /**
+     * Gets the remaining availability error budget.
+     *
+     * @return The fraction of the availability error budget left within the window.
+     */
+    public double getAvailabilityErrorBudgetRemaining() {
+        return 1 - getAvailabilityBurnRate();
+    }
+
+    /**
+     * Checks whether both objectives are met.
+     *
+     * @return {@code true} if the endpoint meets its objectives, {@code false} otherwise.
+     */
+    public boolean isCompliant() {
+        return getLatencyBurnRate() <= 1 && getAvailabilityBurnRate() <= 1;
+    }
+
+    /**
+     * Computes the burn rate of the given number of bad requests.
+     *
+     * @param bad The number of bad requests.
+     * @param objective The fraction of requests that must be good.
+     * @return The burn rate, {@code 0} if there is no request.
+     */
+    private double burnRate(final long bad, final double objective) {
+        if (this.totals.total == 0) {
+            return 0;
+        }
+        return ((double) bad / this.totals.total) / (1 - objective);
+    }
+}
@@ -0,0 +1,202 @@
+package sla.reporter.monitoring;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free ring buffer of per-second request buckets.
+ *
+ * <p>Each slot holds the epoch second it belongs to, the number of requests, errors and requests slower than the
+ * latency threshold, plus a coarse power-of-two latency histogram. A slot is recycled the first time a request of a
+ * newer second lands on it, so recording costs O(1) and evaluation costs O(window buckets).
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ * @implNote A request racing with the recycling of its slot may be counted in the previous second or dropped; the
+ *     resulting error is bounded to the requests of a single bucket boundary and is acceptable for SLO reporting.
+ */
+public class SlidingWindow {
+
+    /**
+     * The number of latency histogram bins. Bin {@code i} counts requests that took less than {@code 2^i} ms, the
+     * last bin counts everything slower.
+     */
+    static final int LATENCY_BINS = 17;
+
+    /**
+     * The number of slots, one per second of the window.
+     */
+    private final int size;
+    /**
+     * The epoch second each slot currently holds.
+     */
+    private final AtomicLongArray seconds;
+    /**
+     * The number of requests per slot.
+     */
+    private final AtomicLongArray totals;
+    /**
+     * The number of failed requests per slot.
+     */
+    private final AtomicLongArray errors;
+    /**
+     * The number of requests slower than the latency threshold per slot.
+     */
+    private final AtomicLongArray slows;
+    /**
+     * The latency histogram of every slot, flattened as {@code slot * LATENCY_BINS + bin}.
+     */
+    private final AtomicLongArray latencies;
+
+    /**
+     * Constructor.
+     *
+     * @param size The number of seconds covered by the window.
+     */
+    public SlidingWindow(final int size) {
+        this.size = size;
+        this.seconds = new AtomicLongArray(size);
+        this.totals = new AtomicLongArray(size);
+        this.errors = new AtomicLongArray(size);
+        this.slows = new AtomicLongArray(size);
+        this.latencies = new AtomicLongArray(size * LATENCY_BINS);
+        for (int i = 0; i < size; i++) {
+            this.seconds.set(i, Long.MIN_VALUE);
+        }
+    }
+
+    /**
+     * Records a single request.
+     *
+     * @param nowSecond The epoch second the request completed in.
+     * @param latencyMillis The request latency in milliseconds.
+     * @param error Whether the request failed.
+     * @param slow Whether the request was slower than the latency threshold.
+     */
+    public void record(final long nowSecond, final long latencyMillis, final boolean error, final boolean slow) {
+        final int slot = (int) Math.floorMod(nowSecond, (long) this.size);
+        final long second = this.seconds.get(slot);
+        if (second != nowSecond) {
+            if (second > nowSecond) {
+                // a late request whose bucket has already been recycled
+                return;
+            }
+            if (this.seconds.compareAndSet(slot, second, nowSecond)) {
+                reset(slot);
+            } else if (this.seconds.get(slot) != nowSecond) {
+                return;
+            }
+        }
+        this.totals.incrementAndGet(slot);
+        if (error) {
+            this.errors.incrementAndGet(slot);
+        }
+        if (slow) {
+            this.slows.incrementAndGet(slot);
+        }
+        this.latencies.incrementAndGet(slot * LATENCY_BINS + bin(latencyMillis));
+    }
+
+    /**
+     * Sums the buckets of the last {@link #size} seconds.
+     *
+     * @param nowSecond The current epoch second.
+     * @return The totals of the window.
+     */
+    public Totals sum(final long nowSecond) {
+        final Totals result = new Totals();
+        final long oldest = nowSecond - this.size;
+        for (int slot = 0; slot < this.size; slot++) {
+            final long second = this.seconds.get(slot);
+            if (second <= oldest || second > nowSecond) {
+                continue;
+            }
+            result.total += this.totals.get(slot);
+            result.errors += this.errors.get(slot);
+            result.slow += this.slows.get(slot);
+            for (int bin = 0; bin < LATENCY_BINS; bin++) {
+                result.latencies[bin] += this.latencies.get(slot * LATENCY_BINS + bin);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Zeroes the counters of the given slot.
+     *
+     * @param slot The slot.
+     */
+    private void reset(final int slot) {
+        this.totals.set(slot, 0);
+        this.errors.set(slot, 0);
+        this.slows.set(slot, 0);
+        for (int bin = 0; bin < LATENCY_BINS; bin++) {
+            this.latencies.set(slot * LATENCY_BINS + bin, 0);
+        }
+    }
+
+    /**
+     * Gets the histogram bin of the given latency.
+     *
+     * @param latencyMillis The latency in milliseconds.
+     * @return The smallest bin whose upper bound is above the latency.
+     */
+    static int bin(final long latencyMillis) {
+        if (latencyMillis <= 0) {
+            return 0;
+        }
+        return Math.min(LATENCY_BINS - 1, 64 - Long.numberOfLeadingZeros(latencyMillis));
+    }
+
+    /**
+     * Gets the exclusive upper bound of the given histogram bin.
+     *
+     * @param bin The bin.
+     * @return The upper bound in milliseconds, {@link Long#MAX_VALUE} for the overflow bin.
+     */
+    static long upperBound(final int bin) {
+        return bin == LATENCY_BINS - 1 ? Long.MAX_VALUE : 1L << bin;
+    }
+
+    /**
+     * The aggregated counters of a window.
+     */
+    public static final class Totals {
+
+        /**
+         * The number of requests.
+         */
+        long total;
+        /**
+         * The number of failed requests.
+         */
+        long errors;
+        /**
+         * The number of requests slower than the latency threshold.
+         */
+        long slow;
+        /**
+         * The latency histogram.
+         */
+        final long[] latencies = new long[LATENCY_BINS];
+
+        /**
+         * Estimates the latency at the given quantile from the histogram.
+         *
+         * @param quantile The quantile, e.g. {@code 0.99}.
+         * @return The upper bound in milliseconds of the bin holding the quantile, {@code 0} if there is no request.
+         */
+        long latencyAt(final double quantile) {
+            if (this.total == 0) {
+                return 0;
+            }
+            final long rank = (long) Math.ceil(quantile * this.total);
+            long seen = 0;
+            for (int bin = 0; bin < LATENCY_BINS; bin++) {
+                seen += this.latencies[bin];
+                if (seen >= rank) {
+                    return upperBound(bin);
+                }
+            }
+            return upperBound(LATENCY_BINS - 1);
+        }
+    }
+}
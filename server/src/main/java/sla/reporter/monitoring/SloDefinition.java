@@ -0,0 +1,200 @@
+package sla.reporter.monitoring;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Class that represents a service level objective of a single endpoint.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class SloDefinition {
+
+    /**
+     * The endpoint, formatted as {@code <METHOD> <path template>}, e.g. {@code POST /api/subscription}.
+     */
+    private final String endpoint;
+    /**
+     * The latency threshold in milliseconds that requests are expected to stay under.
+     */
+    private final long latencyThresholdMillis;
+    /**
+     * The fraction of requests that must stay under the latency threshold, e.g. {@code 0.99} for p99.
+     */
+    private final double latencyObjective;
+    /**
+     * The fraction of requests that must not fail, e.g. {@code 0.999}.
+     */
+    private final double availabilityObjective;
+    /**
+     * The size of the evaluation window in seconds.
+     */
+    private final int windowSeconds;
+
+    /**
+     * Private constructor.
+     *
+     * @param builder The slo builder.
+     */
+    private SloDefinition(final Builder builder) {
+        this.endpoint = builder.endpoint;
+        this.latencyThresholdMillis = builder.latencyThresholdMillis;
+        this.latencyObjective = builder.latencyObjective;
+        this.availabilityObjective = builder.availabilityObjective;
+        this.windowSeconds = builder.windowSeconds;
+    }
+
+    /**
+     * Gets the endpoint.
+     *
+     * @return The endpoint.
+     */
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    /**
+     * Gets the latency threshold in milliseconds.
+     *
+     * @return The latency threshold in milliseconds.
+     */
+    public long getLatencyThresholdMillis() {
+        return this.latencyThresholdMillis;
+    }
+
+    /**
+     * Gets the latency objective.
+     *
+     * @return The fraction of requests that must stay under the latency threshold.
+     */
+    public double getLatencyObjective() {
+        return this.latencyObjective;
+    }
+
+    /**
+     * Gets the availability objective.
+     *
+     * @return The fraction of requests that must not fail.
+     */
+    public double getAvailabilityObjective() {
+        return this.availabilityObjective;
+    }
+
+    /**
+     * Gets the size of the evaluation window.
+     *
+     * @return The size of the evaluation window in seconds.
+     */
+    public int getWindowSeconds() {
+        return this.windowSeconds;
+    }
+
+    @Override
+    public String toString() {
+        return "SloDefinition{" +
+                "endpoint='" + this.endpoint + '\'' +
+                ", latencyThresholdMillis=" + this.latencyThresholdMillis +
+                ", latencyObjective=" + this.latencyObjective +
+                ", availabilityObjective=" + this.availabilityObjective +
+                ", windowSeconds=" + this.windowSeconds +
+                '}';
+    }
+
+    /**
+     * Builder used to create instances of SloDefinition.
+     */
+    public static class Builder {
+
+        /**
+         * The endpoint.
+         */
+        private String endpoint;
+        /**
+         * The latency threshold in milliseconds.
+         */
+        private long latencyThresholdMillis;
+        /**
+         * The latency objective.
+         *
+         * @implSpec By default the objective is p99.
+         */
+        private double latencyObjective = 0.99;
+        /**
+         * The availability objective.
+         *
+         * @implSpec By default the objective is three nines.
+         */
+        private double availabilityObjective = 0.999;
+        /**
+         * The size of the evaluation window in seconds.
+         *
+         * @implSpec By default the window is one hour.
+         */
+        private int windowSeconds = 3600;
+
+        /**
+         * Sets the endpoint.
+         *
+         * @return This builder instance.
+         */
+        public Builder endpoint(final String endpoint) {
+            this.endpoint = endpoint;
+            return this;
+        }
+
+        /**
+         * Sets the latency threshold in milliseconds.
+         *
+         * @return This builder instance.
+         */
+        public Builder latencyThresholdMillis(final long latencyThresholdMillis) {
+            this.latencyThresholdMillis = latencyThresholdMillis;
+            return this;
+        }
+
+        /**
+         * Sets the latency objective.
+         *
+         * @return This builder instance.
+         */
+        public Builder latencyObjective(final double latencyObjective) {
+            this.latencyObjective = latencyObjective;
+            return this;
+        }
+
+        /**
+         * Sets the availability objective.
+         *
+         * @return This builder instance.
+         */
+        public Builder availabilityObjective(final double availabilityObjective) {
+            this.availabilityObjective = availabilityObjective;
+            return this;
+        }
+
+        /**
+         * Sets the size of the evaluation window in seconds.
+         *
+         * @return This builder instance.
+         */
+        public Builder windowSeconds(final int windowSeconds) {
+            this.windowSeconds = windowSeconds;
+            return this;
+        }
+
+        /**
+         * Builds a new {@link SloDefinition} from the information supplied to this {@link SloDefinition.Builder}.
+         *
+         * @return A new slo definition instance.
+         */
+        public SloDefinition build() {
+            checkNotNull(this.endpoint, "Endpoint can't be null");
+            checkArgument(this.latencyThresholdMillis > 0, "Latency threshold must be positive");
+            checkArgument(this.latencyObjective > 0 && this.latencyObjective < 1, "Latency objective must be in (0, 1)");
+            checkArgument(this.availabilityObjective > 0 && this.availabilityObjective < 1,
+                    "Availability objective must be in (0, 1)");
+            checkArgument(this.windowSeconds > 0, "Window must be positive");
+            return new SloDefinition(this);
+        }
+    }
+}
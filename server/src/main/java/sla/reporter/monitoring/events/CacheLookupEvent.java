@@ -0,0 +1,40 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a subscriber cache lookup, whose size is the number of entries of the cache.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.CacheLookup")
+@Label("Cache Lookup")
+@Category({"SLA Reporter", "Storage"})
+@Description("Lookup of a subscriber in one of the cache tiers")
+public class CacheLookupEvent extends SubscriberEvent {
+
+    /**
+     * The cache tier, {@code heap} or {@code offheap}.
+     */
+    @Label("Tier")
+    private String tier;
+    /**
+     * Whether the subscriber was cached.
+     */
+    @Label("Hit")
+    private boolean hit;
+
+    /**
+     * Sets the outcome of the lookup.
+     *
+     * @param tier The cache tier.
+     * @param hit Whether the subscriber was cached.
+     */
+    public void setOutcome(final String tier, final boolean hit) {
+        this.tier = tier;
+        this.hit = hit;
+    }
+}
@@ -0,0 +1,18 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the opening of a subscriber file, whose size is the length of the file in bytes.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.FileOpen")
+@Label("File Open")
+@Category({"SLA Reporter", "Storage"})
+@Description("Opening of a subscriber file for reading")
+public class FileOpenEvent extends SubscriberEvent {
+}
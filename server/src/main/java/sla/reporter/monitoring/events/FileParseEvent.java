@@ -0,0 +1,18 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the parsing of a subscriber file, whose size is the length of the file in bytes.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.FileParse")
+@Label("File Parse")
+@Category({"SLA Reporter", "Storage"})
+@Description("Parsing of a subscriber file into a subscriber")
+public class FileParseEvent extends SubscriberEvent {
+}
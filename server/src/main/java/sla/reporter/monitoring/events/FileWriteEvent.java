@@ -0,0 +1,19 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the writing of a subscriber file into the storage, whose size is the length of the JSON in
+ * characters.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.FileWrite")
+@Label("File Write")
+@Category({"SLA Reporter", "Storage"})
+@Description("Writing and moving of a subscriber file into the storage")
+public class FileWriteEvent extends SubscriberEvent {
+}
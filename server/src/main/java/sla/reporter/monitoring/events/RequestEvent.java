@@ -0,0 +1,40 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a subscription request, whose size is the length of the JSON payload in characters.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.Request")
+@Label("Subscription Request")
+@Category({"SLA Reporter", "API"})
+@Description("Handling of a request by the subscription resource")
+public class RequestEvent extends SubscriberEvent {
+
+    /**
+     * The HTTP method.
+     */
+    @Label("Method")
+    private String method;
+    /**
+     * The HTTP status.
+     */
+    @Label("Status")
+    private int status;
+
+    /**
+     * Sets the outcome of the request.
+     *
+     * @param method The HTTP method.
+     * @param status The HTTP status.
+     */
+    public void setOutcome(final String method, final int status) {
+        this.method = method;
+        this.status = status;
+    }
+}
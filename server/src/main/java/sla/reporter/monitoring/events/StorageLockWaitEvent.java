@@ -0,0 +1,19 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the wait for the storage write lock, whose size is the length of the subscriber to write in
+ * characters.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Name("sla.reporter.StorageLockWait")
+@Label("Storage Lock Wait")
+@Category({"SLA Reporter", "Storage"})
+@Description("Time spent waiting for the storage write lock")
+public class StorageLockWaitEvent extends SubscriberEvent {
+}
@@ -0,0 +1,72 @@
+package sla.reporter.monitoring.events;
+
+import com.google.common.hash.Hashing;
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.StackTrace;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Base class of the flight recorder events about a single subscriber.
+ *
+ * <p>The duration is the one of every {@link Event}, between {@link #begin()} and {@link #end()}. Events are used
+ * with the usual pattern below, which the JIT reduces to nothing while no recording enables them:
+ * <pre>
+ * final FileParseEvent event = new FileParseEvent();
+ * event.begin();
+ * // the timed operation
+ * event.end();
+ * if (event.shouldCommit()) {
+ *     event.set(email, size);
+ *     event.commit();
+ * }
+ * </pre>
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+@Category("SLA Reporter")
+@StackTrace(false)
+public abstract class SubscriberEvent extends Event {
+
+    /**
+     * The hash of the subscriber email, so recordings can be correlated without holding personal data.
+     *
+     * @implNote Not private, the flight recorder ignores the private fields of event super classes.
+     */
+    @Label("Email Hash")
+    @Description("Hash of the subscriber email")
+    protected long emailHash;
+    /**
+     * The size of the handled data, in bytes, characters or entries depending on the event.
+     *
+     * @implNote Not private, the flight recorder ignores the private fields of event super classes. Not annotated as
+     *     a {@link jdk.jfr.DataAmount} either, since only the file events measure bytes.
+     */
+    @Label("Size")
+    @Description("Size of the handled data, see the event description for its unit")
+    protected long size;
+
+    /**
+     * Sets the fields, meant to be called once {@link #shouldCommit()} returned {@code true}.
+     *
+     * @param email The subscriber email, may be {@code null}.
+     * @param size The size of the handled data.
+     */
+    public void set(final String email, final long size) {
+        this.emailHash = hash(email);
+        this.size = size;
+    }
+
+    /**
+     * Hashes an email.
+     *
+     * @param email The email, may be {@code null}.
+     * @return The hash, {@code 0} for {@code null}.
+     */
+    public static long hash(final String email) {
+        return email == null ? 0 : Hashing.murmur3_128().hashString(email, StandardCharsets.UTF_8).asLong();
+    }
+}
@@ -0,0 +1,240 @@
+package sla.reporter.api.idempotency;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the bounded and expiring behaviour of {@link IdempotencyStore}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class IdempotencyStoreTest {
+
+    /**
+     * The fake clock in milliseconds.
+     */
+    private final AtomicLong clock = new AtomicLong();
+
+    /**
+     * The number of threads racing for a key.
+     */
+    private static final int RACERS = 16;
+
+    /**
+     * Builds the fingerprint of a payload holding a single value.
+     *
+     * @param value The value.
+     * @return The fingerprint.
+     */
+    @SuppressWarnings("unchecked")
+    private static byte[] fingerprint(final Object value) {
+        final JSONObject payload = new JSONObject();
+        payload.put("value", value);
+        return IdempotencyStore.fingerprint(payload);
+    }
+
+    /**
+     * Ensures that a completed key replays its response until it expires.
+     */
+    @Test
+    public void replayUntilExpired() {
+        final IdempotencyStore store = new IdempotencyStore(100, 1000, 4, this.clock::get);
+        final IdempotencyStore.Reservation first = store.reserve("key", fingerprint(42));
+        assertTrue("The first request should reserve the key.", first.isOwner());
+        final IdempotencyStore.Reservation inFlight = store.reserve("key", fingerprint(42));
+        assertFalse("The retry should not reserve the key.", inFlight.isOwner());
+        assertSame("The retry should find the reservation.", first.getEntry(), inFlight.getEntry());
+        assertFalse("The reservation should be in flight.", inFlight.getEntry().isCompleted());
+
+        store.complete("key", first.getEntry(), 201, "entity");
+        final IdempotencyStore.Entry completed = store.reserve("key", fingerprint(42)).getEntry();
+        assertTrue("The response should be cached.", completed.isCompleted());
+        assertEquals("The status should be cached.", 201, completed.getStatus());
+        assertEquals("The entity should be cached.", "entity", completed.getEntity());
+        assertFalse("Another payload should not match.", completed.matches(fingerprint(43)));
+
+        this.clock.addAndGet(1000);
+        assertTrue("The expired key should be reserved again.", store.reserve("key", fingerprint(42)).isOwner());
+    }
+
+    /**
+     * Ensures that a released key can be reserved again.
+     */
+    @Test
+    public void releaseFailedRequest() {
+        final IdempotencyStore store = new IdempotencyStore(100, 1000, 4, this.clock::get);
+        final IdempotencyStore.Reservation first = store.reserve("key", fingerprint(42));
+        store.release("key", first.getEntry());
+        assertTrue("The retry should reserve the key again.", store.reserve("key", fingerprint(42)).isOwner());
+    }
+
+    /**
+     * Ensures that a request whose reservation was evicted neither completes nor releases the reservation of a later
+     * request with the same key.
+     */
+    @Test
+    public void keepLaterReservation() {
+        final IdempotencyStore store = new IdempotencyStore(1, 1000, 1, this.clock::get);
+        final IdempotencyStore.Reservation evicted = store.reserve("key", fingerprint(42));
+        store.reserve("other", fingerprint(43));
+        final IdempotencyStore.Reservation later = store.reserve("key", fingerprint(42));
+        assertTrue("The evicted key should be reserved again.", later.isOwner());
+
+        store.complete("key", evicted.getEntry(), 201, "entity");
+        assertFalse("The evicted request should not complete the later reservation.",
+                later.getEntry().isCompleted());
+        store.release("key", evicted.getEntry());
+        final IdempotencyStore.Reservation retry = store.reserve("key", fingerprint(42));
+        assertFalse("The evicted request should not release the later reservation.", retry.isOwner());
+        assertSame("The later reservation should hold the key.", later.getEntry(), retry.getEntry());
+    }
+
+    /**
+     * Ensures that the oldest keys are evicted once full and that memory use is accounted.
+     */
+    @Test
+    public void evictOldestWhenFull() {
+        final IdempotencyStore store = new IdempotencyStore(8, 1000, 1, this.clock::get);
+        for (int i = 0; i < 10; i++) {
+            store.complete("key-" + i, store.reserve("key-" + i, fingerprint(i)).getEntry(), 201, i);
+        }
+        assertEquals("The store should be bounded.", 8, store.size());
+        assertTrue("The memory use should be accounted.", store.estimatedBytes() > 0);
+        assertTrue("The oldest key should be evicted.", store.reserve("key-0", fingerprint(0)).isOwner());
+        assertFalse("The newest key should be kept.", store.reserve("key-9", fingerprint(9)).isOwner());
+    }
+
+    /**
+     * Checks whether a retry matches the reservation of the first request.
+     *
+     * @param first The fingerprint of the first request.
+     * @param retry The fingerprint of the retry.
+     * @return {@code true} if the retry matches, {@code false} otherwise.
+     */
+    private boolean matches(final byte[] first, final byte[] retry) {
+        final IdempotencyStore store = new IdempotencyStore(100, 1000, 4, this.clock::get);
+        store.reserve("key", first);
+        return store.reserve("key", retry).getEntry().matches(retry);
+    }
+
+    /**
+     * Ensures that fingerprints ignore the field order but tell apart payloads differing in any value.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void fingerprintCanonicalPayload() {
+        final JSONObject payload = new JSONObject();
+        payload.put("email", "jonh@gmail.com");
+        payload.put("consent", true);
+        final JSONObject reordered = new JSONObject();
+        reordered.put("consent", true);
+        reordered.put("email", "jonh@gmail.com");
+        assertEquals("A fingerprint should be a SHA-256 digest.", 32, IdempotencyStore.fingerprint(payload).length);
+        assertTrue("The field order should not matter.", matches(
+                IdempotencyStore.fingerprint(payload), IdempotencyStore.fingerprint(reordered)));
+
+        final JSONObject other = new JSONObject();
+        other.putAll(payload);
+        other.put("consent", "true");
+        assertFalse("The value types should matter.", matches(
+                IdempotencyStore.fingerprint(payload), IdempotencyStore.fingerprint(other)));
+        // "Aa" and "BB" share their String hash code
+        assertFalse("Colliding hash codes should not match.",
+                matches(fingerprint("Aa"), fingerprint("BB")));
+    }
+
+    /**
+     * Ensures that racing a completion, every retry finds the single reservation and none reserves the key again.
+     *
+     * @throws Exception if a racer failed.
+     */
+    @Test
+    public void reserveRacingComplete() throws Exception {
+        final IdempotencyStore store = new IdempotencyStore(100, 1000, 4, this.clock::get);
+        final IdempotencyStore.Entry first = store.reserve("key", fingerprint(42)).getEntry();
+        final List<IdempotencyStore.Reservation> reservations =
+                race(store, () -> store.complete("key", first, 201, "entity"));
+
+        assertEquals("Every retry should get an answer.", RACERS, reservations.size());
+        for (final IdempotencyStore.Reservation reservation : reservations) {
+            assertFalse("No retry should reserve the key again.", reservation.isOwner());
+            assertSame("Every retry should find the same entry.", first, reservation.getEntry());
+        }
+        assertTrue("The response should be cached.", first.isCompleted());
+        assertEquals("The status should be cached.", 201, first.getStatus());
+        assertEquals("The store should hold a single key.", 1, store.size());
+    }
+
+    /**
+     * Ensures that racing a release, at most one retry reserves the key again.
+     *
+     * @throws Exception if a racer failed.
+     */
+    @Test
+    public void reserveRacingRelease() throws Exception {
+        final IdempotencyStore store = new IdempotencyStore(100, 1000, 4, this.clock::get);
+        final IdempotencyStore.Entry first = store.reserve("key", fingerprint(42)).getEntry();
+        final List<IdempotencyStore.Reservation> reservations = race(store, () -> store.release("key", first));
+
+        final long reserved = reservations.stream().filter(IdempotencyStore.Reservation::isOwner).count();
+        assertTrue("At most one retry should reserve the released key.", reserved <= 1);
+        for (final IdempotencyStore.Reservation reservation : reservations) {
+            assertFalse("No retry should see a completed response.", reservation.getEntry().isCompleted());
+        }
+        assertEquals("The store should hold at most the new reservation.", reserved, store.size());
+        final IdempotencyStore.Reservation last = store.reserve("key", fingerprint(42));
+        assertEquals("The key should be reserved once the race is over.", reserved == 0, last.isOwner());
+    }
+
+    /**
+     * Runs {@value #RACERS} reservations of the same key alongside the given action, all released by one latch.
+     *
+     * @param store The store.
+     * @param action The action racing the reservations.
+     * @return The reservations.
+     * @throws Exception if a racer failed.
+     */
+    private static List<IdempotencyStore.Reservation> race(final IdempotencyStore store, final Runnable action)
+            throws Exception {
+        final ExecutorService executor = Executors.newFixedThreadPool(RACERS + 1);
+        try {
+            final CountDownLatch start = new CountDownLatch(1);
+            final List<Future<IdempotencyStore.Reservation>> futures = new ArrayList<>();
+            for (int i = 0; i < RACERS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    return store.reserve("key", fingerprint(42));
+                }));
+            }
+            final Future<?> racing = executor.submit(() -> {
+                start.await();
+                action.run();
+                return null;
+            });
+            start.countDown();
+            racing.get(10, TimeUnit.SECONDS);
+            final List<IdempotencyStore.Reservation> reservations = new ArrayList<>();
+            for (final Future<IdempotencyStore.Reservation> future : futures) {
+                reservations.add(future.get(10, TimeUnit.SECONDS));
+            }
+            return Collections.unmodifiableList(reservations);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package sla.reporter.api.sla;
+
+import org.apache.commons.io.FileUtils;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sla.reporter.api.subscription.SubscriptionResource;
+import sla.reporter.api.validation.ValidationExceptionMapper;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.database.nosql.JsonFileManager;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+import sla.reporter.monitoring.SlaEvaluator;
+import sla.reporter.monitoring.SloDefinition;
+
+import javax.ws.rs.client.Entity;
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.GenericType;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Test if the request to {@uri /api/sla} API reports the traffic recorded by the {@link SlaFilter}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class SlaResourceTest extends JerseyTest {
+
+    /**
+     * The maximum number of clients for test purpose.
+     */
+    private static final int MAX_CLIENTS = 10;
+
+    /**
+     * The endpoint of the subscription creation, as registered by the server.
+     */
+    private static final String POST_SUBSCRIPTION = "POST /api/subscription";
+
+    /**
+     * The endpoint of the subscriber lookup, as registered by the server.
+     */
+    private static final String GET_SUBSCRIBER = "GET /api/subscription/{email}";
+
+    /**
+     * A default subscriber for test purpose.
+     */
+    private final Subscriber subscriber = new Subscriber.Builder()
+            .email("jonh@gmail.com")
+            .firstName("Jonh")
+            .gender(Gender.MALE)
+            .birthDay(LocalDate.of(2000, Month.DECEMBER, 25))
+            .consent(true)
+            .newsletterId("fdsavdsasdsda")
+            .build();
+
+    @Override
+    protected Application configure() {
+        enable(TestProperties.LOG_TRAFFIC);
+        enable(TestProperties.DUMP_ENTITY);
+        // Find first available port.
+        forceSet(TestProperties.CONTAINER_PORT, "0");
+        return new Application () {
+            public Set getSingletons() {
+                final Set<Object> set = new HashSet<>();
+                set.add(new SubscriptionResource());
+                set.add(new SlaResource());
+                set.add(new SlaFilter());
+                set.add(new ValidationExceptionMapper());
+                set.add(new JacksonFeature());
+                return set;
+            }
+        };
+    }
+
+    @Override
+    protected void configureClient(ClientConfig config) {
+        config.property(ClientProperties.ASYNC_THREADPOOL_SIZE, MAX_CLIENTS + 2);
+    }
+
+    /**
+     * Registers the objectives of the subscription endpoints, replacing the windows left by a previous test.
+     */
+    @Before
+    public void registerObjectives() {
+        for (final String endpoint : new String[] {POST_SUBSCRIPTION, GET_SUBSCRIBER}) {
+            SlaEvaluator.INSTANCE.register(new SloDefinition.Builder()
+                    .endpoint(endpoint)
+                    .latencyThresholdMillis(1000)
+                    .latencyObjective(0.99)
+                    .availabilityObjective(0.999)
+                    .build());
+        }
+    }
+
+    /**
+     * Removes the objectives registered by each test.
+     */
+    @After
+    public void unregisterObjectives() {
+        SlaEvaluator.INSTANCE.unregister(POST_SUBSCRIPTION);
+        SlaEvaluator.INSTANCE.unregister(GET_SUBSCRIBER);
+    }
+
+    /**
+     * Clean storage produced from each test.
+     *
+     * @throws IOException if something went wrong.
+     */
+    @After
+    public void cleanStorage() throws IOException {
+        FileUtils.deleteDirectory(new File(System.getProperty("user.dir") + File.separator + "storage"));
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that the requests of both subscription endpoints are reported under their objectives.
+     */
+    @Test
+    public void reportSubscriptionTraffic() {
+        final Response postResponse = target("/api/subscription").request().post(Entity.json(this.subscriber.getJsonObject()));
+        assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), postResponse.getStatus());
+        final Response getResponse = target("/api/subscription/" + this.subscriber.getEmail()).request().get();
+        assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), getResponse.getStatus());
+
+        final Response slaResponse = target("/api/sla").request().get();
+        assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), slaResponse.getStatus());
+        final Map<String, Number> requests = new HashMap<>();
+        for (final Map<String, Object> report : slaResponse.readEntity(new GenericType<List<Map<String, Object>>>() { })) {
+            requests.put((String) report.get("endpoint"), (Number) report.get("requests"));
+        }
+        assertNotNull("The creation should be reported.", requests.get(POST_SUBSCRIPTION));
+        assertTrue("The creation should be recorded.", requests.get(POST_SUBSCRIPTION).longValue() > 0);
+        assertNotNull("The lookup should be reported.", requests.get(GET_SUBSCRIBER));
+        assertTrue("The lookup should be recorded.", requests.get(GET_SUBSCRIBER).longValue() > 0);
+    }
+}
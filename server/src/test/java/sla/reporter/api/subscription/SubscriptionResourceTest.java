@@ -11,6 +11,11 @@ import org.junit.After;
 import org.junit.Assert;
 import org.junit.Ignore;
 import org.junit.Test;
+import sla.reporter.api.idempotency.IdempotencyStore;
+import sla.reporter.api.validation.ValidationExceptionMapper;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.database.nosql.JsonFileManager;
 import sla.reporter.model.Gender;
 import sla.reporter.model.Subscriber;
 
@@ -22,6 +27,7 @@ import java.io.IOException;
 import java.time.LocalDate;
 import java.time.Month;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import static org.junit.Assert.*;
@@ -65,6 +71,7 @@ public class SubscriptionResourceTest extends JerseyTest {
             public Set getSingletons() {
                 final Set<Object> set = new HashSet<>();
                 set.add(new SubscriptionResource());
+                set.add(new ValidationExceptionMapper());
                 set.add(new JacksonFeature());
                 return set;
             }
@@ -85,6 +92,9 @@ public class SubscriptionResourceTest extends JerseyTest {
     @After
     public void cleanStorage() throws IOException {
         FileUtils.deleteDirectory(new File(System.getProperty("user.dir") + File.separator + "storage"));
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
     }
 
     /**
@@ -96,6 +106,7 @@ public class SubscriptionResourceTest extends JerseyTest {
         assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), postResponse.getStatus());
         final Subscriber postSubscriber = new Subscriber.Builder().fromJsonObject(postResponse.readEntity(JSONObject.class)).build();
         assertEquals("The created subscriber should be equals to send one.", this.subscriber, postSubscriber);
+        assertNotNull("The subscription time should be assigned.", postSubscriber.getSubscribedAt());
 
         final Response getResponse = target("/api/subscription/" + this.subscriber.getEmail()).request().get();
         assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), getResponse.getStatus());
@@ -118,6 +129,33 @@ public class SubscriptionResourceTest extends JerseyTest {
         assertNull("There should be no json object returned.", repeatedResponse.readEntity(JSONObject.class));
     }
 
+    /**
+     * Ensures that an invalid subscriber is rejected with its field errors.
+     */
+    @Test
+    public void writeInvalidSubscriber() {
+        final JSONObject payload = this.subscriber.getJsonObject();
+        payload.remove("email");
+        payload.put("birthDay", "2000-02-30");
+        final Response response = target("/api/subscription").request().post(Entity.json(payload));
+        assertEquals("Http Response should be 400.", Response.Status.BAD_REQUEST.getStatusCode(), response.getStatus());
+        final JSONObject errors = response.readEntity(JSONObject.class);
+        assertEquals("Every invalid field should be reported.", 2, ((List<?>) errors.get("errors")).size());
+    }
+
+    /**
+     * Ensures that the subscription time sent by the client, even malformed, is replaced by the server one.
+     */
+    @Test
+    public void ignoreClientSubscriptionTime() {
+        final JSONObject payload = this.subscriber.getJsonObject();
+        payload.put("subscribedAt", "yesterday");
+        final Response response = target("/api/subscription").request().post(Entity.json(payload));
+        assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), response.getStatus());
+        final Subscriber postSubscriber = new Subscriber.Builder().fromJsonObject(response.readEntity(JSONObject.class)).build();
+        assertNotNull("The subscription time should be assigned.", postSubscriber.getSubscribedAt());
+    }
+
     /**
      * Ensures that can't get non existing subscriber.
      */
@@ -127,4 +165,45 @@ public class SubscriptionResourceTest extends JerseyTest {
         assertEquals("Http Response should be 404.", Response.Status.NOT_FOUND.getStatusCode(), response.getStatus());
         assertNull("There should be no json object returned.", response.readEntity(JSONObject.class));
     }
+
+    /**
+     * Ensures that a retry with the same idempotency key gets the original response.
+     */
+    @Test
+    public void retryWithIdempotencyKey() {
+        final Response response = target("/api/subscription").request()
+                .header(IdempotencyStore.HEADER, "retry-key")
+                .post(Entity.json(this.subscriber.getJsonObject()));
+        assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), response.getStatus());
+
+        final Response retryResponse = target("/api/subscription").request()
+                .header(IdempotencyStore.HEADER, "retry-key")
+                .post(Entity.json(this.subscriber.getJsonObject()));
+        assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), retryResponse.getStatus());
+        final Subscriber retrySubscriber = new Subscriber.Builder().fromJsonObject(retryResponse.readEntity(JSONObject.class)).build();
+        assertEquals("The replayed subscriber should be equals to send one.", this.subscriber, retrySubscriber);
+    }
+
+    /**
+     * Ensures that an idempotency key reused with another payload is rejected without adding the other subscriber.
+     */
+    @Test
+    public void reuseIdempotencyKeyWithAnotherPayload() {
+        final Response response = target("/api/subscription").request()
+                .header(IdempotencyStore.HEADER, "reused-key")
+                .post(Entity.json(this.subscriber.getJsonObject()));
+        assertEquals("Http Response should be 201.", Response.Status.CREATED.getStatusCode(), response.getStatus());
+
+        final JSONObject otherPayload = this.subscriber.getJsonObject();
+        otherPayload.put("email", "jane@gmail.com");
+        final Response reusedResponse = target("/api/subscription").request()
+                .header(IdempotencyStore.HEADER, "reused-key")
+                .post(Entity.json(otherPayload));
+        assertEquals("Http Response should be 422.", 422, reusedResponse.getStatus());
+        assertNull("There should be no json object returned.", reusedResponse.readEntity(JSONObject.class));
+
+        final Response getResponse = target("/api/subscription/jane@gmail.com").request().get();
+        assertEquals("The other subscriber should not be added.", Response.Status.NOT_FOUND.getStatusCode(),
+                getResponse.getStatus());
+    }
 }
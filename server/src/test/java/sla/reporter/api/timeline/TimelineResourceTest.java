@@ -0,0 +1,218 @@
+package sla.reporter.api.timeline;
+
+import org.apache.commons.io.FileUtils;
+import org.glassfish.jersey.client.ClientConfig;
+import org.glassfish.jersey.client.ClientProperties;
+import org.glassfish.jersey.jackson.JacksonFeature;
+import org.glassfish.jersey.test.JerseyTest;
+import org.glassfish.jersey.test.TestProperties;
+import org.json.simple.JSONArray;
+import org.json.simple.JSONObject;
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.database.nosql.JsonFileManager;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import javax.ws.rs.core.Application;
+import javax.ws.rs.core.Response;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Test whether the endpoint <i>/api/timeline</i> reports the stored subscriptions and rejects invalid ranges.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class TimelineResourceTest extends JerseyTest {
+
+    /**
+     * The maximum number of clients.
+     */
+    private static final int MAX_CLIENTS = 10;
+
+    /**
+     * A valid instant beyond the range of epoch milliseconds.
+     */
+    private static final String FAR_FUTURE = "+1000000000-01-01T00:00:00Z";
+
+    @Override
+    protected Application configure() {
+        enable(TestProperties.LOG_TRAFFIC);
+        enable(TestProperties.DUMP_ENTITY);
+        // Find first available port.
+        forceSet(TestProperties.CONTAINER_PORT, "0");
+        return new Application () {
+            public Set getSingletons() {
+                final Set<Object> set = new HashSet<>();
+                set.add(new TimelineResource());
+                set.add(new JacksonFeature());
+                return set;
+            }
+        };
+    }
+
+    @Override
+    protected void configureClient(ClientConfig config) {
+        config.property(ClientProperties.ASYNC_THREADPOOL_SIZE, MAX_CLIENTS + 2);
+    }
+
+    /**
+     * Clean storage produced from each test.
+     *
+     * @throws IOException if something went wrong.
+     */
+    @After
+    public void cleanStorage() throws IOException {
+        FileUtils.deleteDirectory(new File(System.getProperty("user.dir") + File.separator + "storage"));
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Checks whether the subscriptions are counted per step, the range being aligned on the steps.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void countRange() {
+        writeSubscribers();
+        final Response response = target("/api/timeline/launch/counts")
+                .queryParam("from", "2020-09-13T10:20:00Z")
+                .queryParam("to", "2020-09-13T12:10:00Z")
+                .request().get();
+        assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), response.getStatus());
+
+        final JSONObject counts = response.readEntity(JSONObject.class);
+        assertEquals("The newsletter should be echoed.", "launch", counts.get("newsletterId"));
+        assertEquals("The start should be rounded down to the hour.", "2020-09-13T10:00:00Z", counts.get("from"));
+        assertEquals("The end should be rounded up to the hour.", "2020-09-13T13:00:00Z", counts.get("to"));
+        assertEquals("The default step should be the hour.", "hour", counts.get("step"));
+        assertEquals("Only the subscriptions of the range should be counted.", 3,
+                ((Number) counts.get("total")).longValue());
+        final List<Map<String, Object>> points = (List<Map<String, Object>>) counts.get("points");
+        assertEquals("There should be a point per hour.", 3, points.size());
+        final String[] starts = {"2020-09-13T10:00:00Z", "2020-09-13T11:00:00Z", "2020-09-13T12:00:00Z"};
+        final long[] expected = {2, 0, 1};
+        for (int i = 0; i < points.size(); i++) {
+            assertEquals("The points should follow each other.", starts[i], points.get(i).get("start"));
+            assertEquals("Each point should count its hour.", expected[i],
+                    ((Number) points.get(i).get("count")).longValue());
+        }
+    }
+
+    /**
+     * Checks whether the subscribers of a range are listed in subscription order, up to the limit.
+     */
+    @Test
+    @SuppressWarnings("unchecked")
+    public void listRange() {
+        writeSubscribers();
+        final Response all = target("/api/timeline/launch/subscribers")
+                .queryParam("from", "2020-09-13T10:00:00Z")
+                .queryParam("to", "2020-09-13T12:30:00Z")
+                .request().get();
+        assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), all.getStatus());
+        final List<Map<String, Object>> listed = all.readEntity(JSONArray.class);
+        assertEquals("The end of the range should be excluded.",
+                Arrays.asList("first@example.com", "second@example.com"), emails(listed));
+        assertEquals("The subscription time should be listed.", "2020-09-13T10:15:00Z",
+                listed.get(0).get("subscribedAt"));
+
+        final Response limited = target("/api/timeline/launch/subscribers")
+                .queryParam("from", "2020-09-13T00:00:00Z")
+                .queryParam("to", "2020-09-15T00:00:00Z")
+                .queryParam("limit", 3)
+                .request().get();
+        assertEquals("Http Response should be 200.", Response.Status.OK.getStatusCode(), limited.getStatus());
+        assertEquals("The listing should stop at the limit.",
+                Arrays.asList("first@example.com", "second@example.com", "third@example.com"),
+                emails(limited.readEntity(JSONArray.class)));
+    }
+
+    /**
+     * Checks whether instants beyond the epoch milliseconds range are rejected with status 400.
+     */
+    @Test
+    public void rejectOverflowingInstants() {
+        final Response counts = target("/api/timeline/newsletter/counts")
+                .queryParam("to", FAR_FUTURE)
+                .request().get();
+        assertEquals("Http Response should be 400.", Response.Status.BAD_REQUEST.getStatusCode(), counts.getStatus());
+
+        final Response subscribers = target("/api/timeline/newsletter/subscribers")
+                .queryParam("from", "-" + FAR_FUTURE.substring(1))
+                .request().get();
+        assertEquals("Http Response should be 400.", Response.Status.BAD_REQUEST.getStatusCode(),
+                subscribers.getStatus());
+    }
+
+    /**
+     * Writes subscribers of the {@code launch} newsletter at 10:15, 10:45 and 12:30 on 2020-09-13 and at 01:00 the
+     * day after, and a subscriber of another newsletter at 10:20.
+     */
+    private static void writeSubscribers() {
+        write("first@example.com", "launch", "2020-09-13T10:15:00Z");
+        write("second@example.com", "launch", "2020-09-13T10:45:00Z");
+        write("other@example.com", "other", "2020-09-13T10:20:00Z");
+        write("third@example.com", "launch", "2020-09-13T12:30:00Z");
+        write("fourth@example.com", "launch", "2020-09-14T01:00:00Z");
+    }
+
+    /**
+     * Writes a subscriber.
+     *
+     * @param email The email.
+     * @param newsletterId The newsletter id.
+     * @param subscribedAt The subscription time.
+     */
+    private static void write(final String email, final String newsletterId, final String subscribedAt) {
+        JsonFileManager.INSTANCE.writeObject(new Subscriber.Builder()
+                .email(email)
+                .gender(Gender.NONE)
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .consent(true)
+                .newsletterId(newsletterId)
+                .subscribedAt(Instant.parse(subscribedAt))
+                .build());
+    }
+
+    /**
+     * Gets the emails of listed subscribers.
+     *
+     * @param listed The listed subscribers.
+     * @return The emails in listing order.
+     */
+    private static List<Object> emails(final List<Map<String, Object>> listed) {
+        final List<Object> emails = new ArrayList<>();
+        for (final Map<String, Object> subscriber : listed) {
+            emails.add(subscriber.get("email"));
+        }
+        return emails;
+    }
+
+    /**
+     * Checks whether a reversed range is rejected with status 400.
+     */
+    @Test
+    public void rejectReversedRange() {
+        final Response response = target("/api/timeline/newsletter/subscribers")
+                .queryParam("from", "2020-09-14T00:00:00Z")
+                .queryParam("to", "2020-09-13T00:00:00Z")
+                .request().get();
+        assertEquals("Http Response should be 400.", Response.Status.BAD_REQUEST.getStatusCode(),
+                response.getStatus());
+    }
+}
@@ -0,0 +1,165 @@
+package sla.reporter.database.index;
+
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import org.json.simple.parser.ParseException;
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the queries of {@link AudienceIndex}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class AudienceIndexTest {
+
+    /**
+     * The clock used to resolve ages.
+     */
+    private static final Clock CLOCK = Clock.fixed(Instant.parse("2020-06-01T00:00:00Z"), ZoneOffset.UTC);
+
+    /**
+     * Cleans the index.
+     */
+    @After
+    public void cleanIndex() {
+        AudienceIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that boolean queries count the matching subscribers.
+     */
+    @Test
+    public void countSegments() throws ParseException {
+        add("a@example.com", Gender.FEMALE, 2000, true, "A");
+        add("b@example.com", Gender.FEMALE, 1980, true, "B");
+        add("c@example.com", Gender.MALE, 2001, false, "A");
+        add("d@example.com", Gender.NONE, 1999, true, "B");
+
+        assertEquals("Every subscriber should be indexed.", 4, AudienceIndex.INSTANCE.size());
+        assertEquals("The consenting subscribers should match.", 3, count("{\"consent\": true}"));
+        assertEquals("The newsletter should match.", 2, count("{\"newsletterId\": \"A\"}"));
+        assertEquals("The unknown newsletter should not match.", 0, count("{\"newsletterId\": \"C\"}"));
+        assertEquals("The ages should be resolved to birth years.", 3, count("{\"age\": {\"min\": 18, \"max\": 25}}"));
+        assertEquals("The conjunction should match.", 2,
+                count("{\"and\": [{\"consent\": true}, {\"age\": {\"min\": 18, \"max\": 25}}]}"));
+        assertEquals("The disjunction should match.", 3,
+                count("{\"or\": [{\"gender\": \"female\"}, {\"newsletterId\": \"A\"}]}"));
+        assertEquals("The negation should match.", 2, count("{\"not\": {\"gender\": \"female\"}}"));
+    }
+
+    /**
+     * Ensures that open-ended and empty birth year ranges only visit the indexed years.
+     */
+    @Test(timeout = 10_000)
+    public void countOpenEndedBirthYears() throws ParseException {
+        add("a@example.com", Gender.FEMALE, 2000, true, "A");
+        add("b@example.com", Gender.MALE, 1980, true, "A");
+        add("c@example.com", Gender.NONE, 1990, true, "A");
+
+        assertEquals("The range without upper bound should match.", 2, count("{\"birthYear\": {\"from\": 1990}}"));
+        assertEquals("The range without lower bound should match.", 2, count("{\"birthYear\": {\"to\": 1990}}"));
+        assertEquals("The range at the upper limit should end.", 0,
+                count("{\"birthYear\": {\"from\": 2147483646}}"));
+        assertEquals("The unbounded range should match every year.", 3, count("{\"birthYear\": {}}"));
+        assertEquals("The reversed range should match nothing.", 0,
+                count("{\"birthYear\": {\"from\": 2000, \"to\": 1980}}"));
+    }
+
+    /**
+     * Ensures that the matching emails are streamed in insertion order up to the limit.
+     */
+    @Test
+    public void streamMatches() throws ParseException {
+        for (int i = 0; i < 3000; i++) {
+            add(i + "@example.com", Gender.NONE, 1990, i % 2 == 0, "A");
+        }
+        final List<String> emails = new ArrayList<>();
+        AudienceIndex.INSTANCE.forEachMatch(query("{\"consent\": false}"), 1500, emails::add);
+        assertEquals("The stream should be limited.", 1500, emails.size());
+        assertEquals("The stream should keep insertion order.", Arrays.asList("1@example.com", "3@example.com"),
+                emails.subList(0, 2));
+        assertEquals("The stream should cross batches.", "2999@example.com", emails.get(1499));
+    }
+
+    /**
+     * Ensures that malformed queries are rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectMalformedQuery() throws ParseException {
+        query("{\"and\": {\"consent\": true}}");
+    }
+
+    /**
+     * Ensures that fractional or out of range bounds are rejected rather than truncated.
+     */
+    @Test
+    public void rejectInexactBounds() throws ParseException {
+        assertEquals("An integral number should be accepted.", 0, count("{\"age\": {\"min\": 18.0}}"));
+        for (final String query : new String[] {
+                "{\"age\": {\"min\": 18.7}}",
+                "{\"age\": {\"min\": -1}}",
+                "{\"birthYear\": {\"from\": 2147483648}}",
+                "{\"birthYear\": {\"to\": 1e300}}"}) {
+            try {
+                query(query);
+                fail("The query should be rejected: " + query);
+            } catch (final IllegalArgumentException expected) {
+                // expected
+            }
+        }
+    }
+
+    /**
+     * Indexes a subscriber.
+     *
+     * @param email The email.
+     * @param gender The gender.
+     * @param birthYear The birth year.
+     * @param consent The consent.
+     * @param newsletterId The newsletter id.
+     */
+    private static void add(final String email, final Gender gender, final int birthYear, final boolean consent,
+                            final String newsletterId) {
+        AudienceIndex.INSTANCE.add(new Subscriber.Builder()
+                .email(email)
+                .gender(gender)
+                .birthDay(LocalDate.of(birthYear, 3, 1))
+                .consent(consent)
+                .newsletterId(newsletterId)
+                .build());
+    }
+
+    /**
+     * Counts the subscribers matching a query.
+     *
+     * @param json The query.
+     * @return The number of matching subscribers.
+     */
+    private static long count(final String json) throws ParseException {
+        return AudienceIndex.INSTANCE.count(query(json));
+    }
+
+    /**
+     * Parses a query.
+     *
+     * @param json The query.
+     * @return The query.
+     */
+    private static AudienceQuery query(final String json) throws ParseException {
+        return AudienceQuery.parse((JSONObject) new JSONParser().parse(json), CLOCK);
+    }
+}
@@ -0,0 +1,118 @@
+package sla.reporter.database.index;
+
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.model.Subscriber;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the time ranges of {@link TimeBucketIndex}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class TimeBucketIndexTest {
+
+    /**
+     * The length of an hour in milliseconds.
+     */
+    private static final long HOUR = 3_600_000L;
+
+    /**
+     * The start of the day the subscribers subscribed.
+     */
+    private static final Instant DAY = Instant.parse("2020-09-13T00:00:00Z");
+
+    /**
+     * Cleans the index.
+     */
+    @After
+    public void cleanIndex() {
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that subscriptions are counted per step of their newsletter.
+     */
+    @Test
+    public void countPerStep() {
+        add("a@example.com", "A", "2020-09-13T00:10:00Z");
+        add("b@example.com", "A", "2020-09-13T00:59:59.999Z");
+        add("c@example.com", "A", "2020-09-13T02:00:00Z");
+        add("d@example.com", "B", "2020-09-13T00:30:00Z");
+        TimeBucketIndex.INSTANCE.add(new Subscriber.Builder()
+                .email("legacy@example.com")
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .newsletterId("A")
+                .build());
+
+        final long from = DAY.toEpochMilli();
+        assertArrayEquals("The subscriptions should be counted per hour.", new long[] {2, 0, 1},
+                TimeBucketIndex.INSTANCE.count("A", from, from + 3 * HOUR, HOUR));
+        assertArrayEquals("The other newsletter should be counted apart.", new long[] {1},
+                TimeBucketIndex.INSTANCE.count("B", from, from + 3 * HOUR, 3 * HOUR));
+        assertArrayEquals("An unknown newsletter should count nothing.", new long[] {0, 0},
+                TimeBucketIndex.INSTANCE.count("C", from, from + 2 * HOUR, HOUR));
+    }
+
+    /**
+     * Ensures that listing is exact at the edges of the range, within the first and last buckets.
+     */
+    @Test
+    public void listRange() {
+        add("a@example.com", "A", "2020-09-13T00:10:00Z");
+        add("b@example.com", "A", "2020-09-13T00:10:30Z");
+        add("c@example.com", "A", "2020-09-13T00:11:00Z");
+        add("d@example.com", "A", "2020-09-13T00:12:00Z");
+        final List<String> emails = new ArrayList<>();
+        TimeBucketIndex.INSTANCE.forEachInRange("A", Instant.parse("2020-09-13T00:10:15Z").toEpochMilli(),
+                Instant.parse("2020-09-13T00:12:00Z").toEpochMilli(), 10, (email, subscribedAt) -> emails.add(email));
+        assertEquals("Only the subscribers within the range should be listed.",
+                Arrays.asList("b@example.com", "c@example.com"), emails);
+
+        emails.clear();
+        add("e@example.com", "A", "2020-09-13T00:11:45Z");
+        TimeBucketIndex.INSTANCE.forEachInRange("A", DAY.toEpochMilli(),
+                Instant.parse("2020-09-13T00:11:30Z").toEpochMilli(), 10, (email, subscribedAt) -> emails.add(email));
+        assertEquals("The last bucket should be cut at the end of the range.",
+                Arrays.asList("a@example.com", "b@example.com", "c@example.com"), emails);
+
+        emails.clear();
+        TimeBucketIndex.INSTANCE.forEachInRange("A", DAY.toEpochMilli(), DAY.toEpochMilli() + HOUR, 3,
+                (email, subscribedAt) -> emails.add(email));
+        assertEquals("The listing should be limited across buckets.",
+                Arrays.asList("a@example.com", "b@example.com", "c@example.com"), emails);
+    }
+
+    /**
+     * Ensures that a series can't hold too many points.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectTooManyPoints() {
+        TimeBucketIndex.INSTANCE.count("A", 0, (TimeBucketIndex.MAX_POINTS + 1) * TimeBucketIndex.BUCKET_MILLIS,
+                TimeBucketIndex.BUCKET_MILLIS);
+    }
+
+    /**
+     * Indexes a subscriber.
+     *
+     * @param email The email.
+     * @param newsletterId The newsletter id.
+     * @param subscribedAt The subscription time.
+     */
+    private static void add(final String email, final String newsletterId, final String subscribedAt) {
+        TimeBucketIndex.INSTANCE.add(new Subscriber.Builder()
+                .email(email)
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .newsletterId(newsletterId)
+                .subscribedAt(Instant.parse(subscribedAt))
+                .build());
+    }
+}
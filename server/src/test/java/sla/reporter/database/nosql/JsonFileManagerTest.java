@@ -0,0 +1,65 @@
+package sla.reporter.database.nosql;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the writes of {@link JsonFileManager}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class JsonFileManagerTest {
+
+    /**
+     * The storage folder.
+     */
+    private final File storage = new File(System.getProperty("user.dir") + File.separator + "storage");
+
+    /**
+     * Clean storage produced from each test.
+     */
+    @After
+    public void cleanStorage() throws IOException {
+        FileUtils.deleteDirectory(this.storage);
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that a write failing to move its file into the storage leaves no temporary file behind.
+     */
+    @Test
+    public void deleteTemporaryFileOfFailedWrite() throws IOException {
+        final Subscriber subscriber = new Subscriber.Builder()
+                .email("blocked@example.com")
+                .firstName("Blocked")
+                .gender(Gender.NONE)
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .consent(true)
+                .newsletterId("failure")
+                .build();
+        // a non-empty folder in place of the subscriber file makes the move fail
+        final File blocking = new File(this.storage, subscriber.getEmail());
+        Files.createDirectories(blocking.toPath());
+        Files.createFile(new File(blocking, "child").toPath());
+
+        assertFalse("The write should fail.", JsonFileManager.INSTANCE.writeObject(subscriber));
+        assertFalse("The temporary file should be deleted.",
+                new File(this.storage, ".tmp" + File.separator + subscriber.getEmail()).exists());
+        assertTrue("The storage should be left as it was.", new File(blocking, "child").isFile());
+    }
+}
@@ -0,0 +1,143 @@
+package sla.reporter.database.nosql;
+
+import org.junit.Test;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.Month;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the packed layout and the eviction of {@link OffHeapSubscriberCache}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class OffHeapSubscriberCacheTest {
+
+    /**
+     * Ensures that every field survives the encoding.
+     */
+    @Test
+    public void putAndGetSubscriber() {
+        final OffHeapSubscriberCache cache = new OffHeapSubscriberCache(OffHeapSubscriberCache.SLAB_SIZE);
+        final Subscriber subscriber = new Subscriber.Builder()
+                .email("jonh@gmail.com")
+                .firstName("Jönh")
+                .gender(Gender.FEMALE)
+                .birthDay(LocalDate.of(2000, Month.DECEMBER, 25))
+                .consent(true)
+                .newsletterId("fdsavdsasdsda")
+                .subscribedAt(Instant.parse("2020-09-13T12:26:40.123Z"))
+                .build();
+        assertTrue("The subscriber should be admitted.", cache.put(subscriber));
+
+        final Subscriber cached = cache.get(subscriber.getEmail());
+        assertEquals("The cached subscriber should be equals to put one.", subscriber, cached);
+        assertEquals("The first name should be kept.", "Jönh", cached.getFirstName());
+        assertEquals("The gender should be kept.", Gender.FEMALE, cached.genderValue());
+        assertEquals("The subscription time should be kept.", subscriber.optionalSubscribedAt(),
+                cached.optionalSubscribedAt());
+        assertNull("An unknown email should miss.", cache.get("jonh@example.com"));
+    }
+
+    /**
+     * Ensures that an absent first name and subscription time stay absent.
+     */
+    @Test
+    public void keepAbsentFirstName() {
+        final OffHeapSubscriberCache cache = new OffHeapSubscriberCache(OffHeapSubscriberCache.SLAB_SIZE);
+        cache.put(subscriber(1));
+        assertFalse("The first name should be absent.", cache.get(subscriber(1).getEmail()).optionalFirstName().isPresent());
+        assertFalse("The subscription time should be absent.",
+                cache.get(subscriber(1).getEmail()).optionalSubscribedAt().isPresent());
+    }
+
+    /**
+     * Ensures that the index grows and that the oldest slab is evicted once the slabs are full.
+     */
+    @Test
+    public void evictOldestSlabWhenFull() {
+        final OffHeapSubscriberCache cache = new OffHeapSubscriberCache(2L * OffHeapSubscriberCache.SLAB_SIZE);
+        int added = 0;
+        while (cache.evictions() == 0) {
+            assertTrue("The subscriber should be admitted.", cache.put(subscriber(added)));
+            added++;
+        }
+        assertEquals("Two slabs should be allocated.", 2L * OffHeapSubscriberCache.SLAB_SIZE, cache.allocatedBytes());
+        assertEquals("Evicted subscribers should no longer be counted.", added - cache.evictions(), cache.size());
+        assertNull("The oldest subscriber should be evicted.", cache.get(subscriber(0).getEmail()));
+        assertNull("The last subscriber of the oldest slab should be evicted.",
+                cache.get(subscriber((int) cache.evictions() - 1).getEmail()));
+        for (int i = (int) cache.evictions(); i < added; i += 997) {
+            assertEquals("Newer subscribers should be found.", subscriber(i), cache.get(subscriber(i).getEmail()));
+        }
+        assertEquals("The newest subscriber should be found.", subscriber(added - 1),
+                cache.get(subscriber(added - 1).getEmail()));
+    }
+
+    /**
+     * Ensures that concurrent lookups only see complete subscribers while other threads add and evict subscribers.
+     */
+    @Test
+    public void readWhileWriting() throws Exception {
+        final OffHeapSubscriberCache cache = new OffHeapSubscriberCache(OffHeapSubscriberCache.SLAB_SIZE);
+        final int writers = 4;
+        final int perWriter = 50_000;
+        final AtomicInteger written = new AtomicInteger();
+        final AtomicReference<String> failure = new AtomicReference<>();
+        final List<Thread> threads = new ArrayList<>();
+        for (int w = 0; w < writers; w++) {
+            final int writer = w;
+            threads.add(new Thread(() -> {
+                for (int i = writer; i < writers * perWriter; i += writers) {
+                    cache.put(subscriber(i));
+                    written.incrementAndGet();
+                }
+            }));
+            threads.add(new Thread(() -> {
+                final Random random = new Random(writer);
+                while (written.get() < writers * perWriter) {
+                    final int index = random.nextInt(writers * perWriter);
+                    final Subscriber cached = cache.get(subscriber(index).getEmail());
+                    if (cached != null && !subscriber(index).equals(cached)) {
+                        failure.compareAndSet(null, "Unexpected " + cached + " for " + index);
+                    }
+                }
+            }));
+        }
+        for (final Thread thread : threads) {
+            thread.start();
+        }
+        for (final Thread thread : threads) {
+            thread.join();
+        }
+        assertNull("Every lookup should decode the subscriber of its email.", failure.get());
+        assertTrue("Subscribers should be evicted.", cache.evictions() > 0);
+    }
+
+    /**
+     * Creates a subscriber for test purpose.
+     *
+     * @param index The subscriber index.
+     * @return The subscriber.
+     */
+    private static Subscriber subscriber(final int index) {
+        return new Subscriber.Builder()
+                .email("subscriber" + index + "@example.com")
+                .birthDay(LocalDate.ofEpochDay(index % 20_000))
+                .consent(index % 2 == 0)
+                .newsletterId("newsletter-" + index % 7)
+                .build();
+    }
+}
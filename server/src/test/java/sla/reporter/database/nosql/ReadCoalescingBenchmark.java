@@ -0,0 +1,182 @@
+package sla.reporter.database.nosql;
+
+import org.apache.commons.io.FileUtils;
+import org.json.simple.JSONObject;
+import org.json.simple.parser.JSONParser;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.io.FileReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Contention benchmark of concurrent cold reads of a few hot subscribers, as seen when a campaign launches.
+ *
+ * <p>Each round drops the caches and releases many readers at once on a handful of emails, then reports the number
+ * of files read and the latency percentiles with coalescing and with the former reads under the storage lock. The
+ * subscribers are read from a temporary folder, the storage is left untouched. Run it from the test classpath, e.g.
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=sla.reporter.database.nosql.ReadCoalescingBenchmark}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public final class ReadCoalescingBenchmark {
+
+    /**
+     * The number of hot emails.
+     */
+    private static final int HOT_EMAILS = 4;
+    /**
+     * The number of concurrent readers per round.
+     */
+    private static final int READERS = 64;
+    /**
+     * The number of measured rounds.
+     */
+    private static final int ROUNDS = 200;
+    /**
+     * The number of warmup rounds.
+     */
+    private static final int WARMUP_ROUNDS = 50;
+
+    /**
+     * The lock the files used to be read under.
+     */
+    private static final Object STORAGE_LOCK = new Object();
+
+    /**
+     * The number of files read so far.
+     */
+    private static final AtomicLong DISK_READS = new AtomicLong();
+
+    /**
+     * Private constructor.
+     */
+    private ReadCoalescingBenchmark() {}
+
+    /**
+     * Method called from the operating system.
+     */
+    public static void main(final String[] args) throws Exception {
+        final Path folder = Files.createTempDirectory("read-coalescing-");
+        final JsonFileManager.Loader fileLoader = JsonFileManager.INSTANCE.setLoader(email -> read(folder, email));
+        try {
+            final String[] emails = new String[HOT_EMAILS];
+            for (int i = 0; i < HOT_EMAILS; i++) {
+                emails[i] = "hot" + i + "@example.com";
+                final Subscriber subscriber = new Subscriber.Builder()
+                        .email(emails[i])
+                        .firstName("Hot")
+                        .gender(Gender.NONE)
+                        .birthDay(LocalDate.of(1990, 1, 1))
+                        .consent(true)
+                        .newsletterId("launch")
+                        .build();
+                Files.write(folder.resolve(emails[i]),
+                        subscriber.getJsonObject().toJSONString().getBytes(StandardCharsets.UTF_8));
+            }
+            run(folder, emails, false);
+            run(folder, emails, true);
+        } finally {
+            JsonFileManager.INSTANCE.setLoader(fileLoader);
+            JsonFileManager.INSTANCE.invalidateCaches();
+            FileUtils.deleteDirectory(folder.toFile());
+        }
+    }
+
+    /**
+     * Runs the rounds of a mode and prints the results.
+     *
+     * @param folder The folder of the subscriber files.
+     * @param emails The hot emails.
+     * @param coalescing Whether the reads go through the coalescing {@link JsonFileManager}, or else read the files
+     *                   under the storage lock as they used to.
+     */
+    private static void run(final Path folder, final String[] emails, final boolean coalescing)
+            throws InterruptedException {
+        rounds(folder, emails, coalescing, WARMUP_ROUNDS, new long[WARMUP_ROUNDS * READERS]);
+        final long[] latencies = new long[ROUNDS * READERS];
+        final long diskReadsBefore = DISK_READS.get();
+        rounds(folder, emails, coalescing, ROUNDS, latencies);
+        final long diskReads = DISK_READS.get() - diskReadsBefore;
+        Arrays.sort(latencies);
+        System.out.printf("coalescing=%s disk reads/round=%.1f p50=%.3fms p99=%.3fms p99.9=%.3fms max=%.3fms%n",
+                coalescing, (double) diskReads / ROUNDS,
+                millis(latencies, 0.5), millis(latencies, 0.99), millis(latencies, 0.999),
+                latencies[latencies.length - 1] / 1e6);
+    }
+
+    /**
+     * Runs rounds where the caches are dropped and all the readers are released at once.
+     *
+     * @param folder The folder of the subscriber files.
+     * @param emails The hot emails.
+     * @param coalescing Whether the reads go through the coalescing {@link JsonFileManager}.
+     * @param rounds The number of rounds.
+     * @param latencies The latency of each read in nanoseconds, filled by this method.
+     */
+    private static void rounds(final Path folder, final String[] emails, final boolean coalescing, final int rounds,
+                               final long[] latencies) throws InterruptedException {
+        final CyclicBarrier barrier = new CyclicBarrier(READERS, JsonFileManager.INSTANCE::invalidateCaches);
+        final Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            final int reader = i;
+            readers[i] = new Thread(() -> {
+                try {
+                    for (int round = 0; round < rounds; round++) {
+                        barrier.await();
+                        final String email = emails[reader % emails.length];
+                        final long begin = System.nanoTime();
+                        if (coalescing) {
+                            JsonFileManager.INSTANCE.readObject(email);
+                        } else {
+                            synchronized (STORAGE_LOCK) {
+                                read(folder, email);
+                            }
+                        }
+                        latencies[round * READERS + reader] = System.nanoTime() - begin;
+                    }
+                } catch (final Exception e) {
+                    throw new IllegalStateException(e);
+                }
+            });
+            readers[i].start();
+        }
+        for (final Thread reader : readers) {
+            reader.join();
+        }
+    }
+
+    /**
+     * Reads and parses a subscriber file.
+     *
+     * @param folder The folder of the subscriber files.
+     * @param email The email.
+     * @return The subscriber.
+     */
+    private static Subscriber read(final Path folder, final String email) throws Exception {
+        DISK_READS.incrementAndGet();
+        try (final FileReader reader = new FileReader(folder.resolve(email).toFile())) {
+            return new Subscriber.Builder()
+                    .fromJsonObject((JSONObject) new JSONParser().parse(reader))
+                    .build();
+        }
+    }
+
+    /**
+     * Gets the latency at the given quantile.
+     *
+     * @param sorted The sorted latencies in nanoseconds.
+     * @param quantile The quantile.
+     * @return The latency in milliseconds.
+     */
+    private static double millis(final long[] sorted, final double quantile) {
+        return sorted[(int) Math.min(sorted.length - 1, Math.ceil(quantile * sorted.length) - 1)] / 1e6;
+    }
+}
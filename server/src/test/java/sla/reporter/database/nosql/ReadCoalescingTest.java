@@ -0,0 +1,203 @@
+package sla.reporter.database.nosql;
+
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the coalescing of concurrent cold reads of the same subscriber.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class ReadCoalescingTest {
+
+    /**
+     * The number of concurrent readers.
+     */
+    private static final int READERS = 8;
+
+    /**
+     * The storage folder.
+     */
+    private final File storage = new File(System.getProperty("user.dir") + File.separator + "storage");
+
+    /**
+     * The number of loads, counted by the loader installed for each test.
+     */
+    private final AtomicInteger loads = new AtomicInteger();
+
+    /**
+     * Signaled once a load started.
+     */
+    private final CountDownLatch loading = new CountDownLatch(1);
+
+    /**
+     * Releases the loads held by the loader.
+     */
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    /**
+     * The loader replaced for each test.
+     */
+    private JsonFileManager.Loader fileLoader;
+
+    /**
+     * Installs a loader counting the loads and holding them until released.
+     */
+    @Before
+    public void holdLoads() {
+        this.fileLoader = JsonFileManager.INSTANCE.setLoader(email -> {
+            this.loads.incrementAndGet();
+            this.loading.countDown();
+            Uninterruptibles.awaitUninterruptibly(this.release);
+            return this.fileLoader.load(email);
+        });
+    }
+
+    /**
+     * Clean storage produced from each test.
+     */
+    @After
+    public void cleanStorage() throws IOException {
+        this.release.countDown();
+        JsonFileManager.INSTANCE.setLoader(this.fileLoader);
+        FileUtils.deleteDirectory(this.storage);
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that concurrent cold readers share a single load and get the same subscriber.
+     */
+    @Test
+    public void coalesceColdReads() throws Exception {
+        final Subscriber subscriber = new Subscriber.Builder()
+                .email("cold@example.com")
+                .firstName("Cold")
+                .gender(Gender.NONE)
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .consent(true)
+                .newsletterId("coalescing")
+                .build();
+        JsonFileManager.INSTANCE.writeObject(subscriber);
+        JsonFileManager.INSTANCE.invalidateCaches();
+
+        final List<Object> results = readConcurrently(subscriber.getEmail());
+        assertEquals("A single file should be read.", 1, this.loads.get());
+        assertEquals("The subscriber should be read.", subscriber, results.get(0));
+        for (final Object result : results) {
+            assertSame("Every reader should get the same subscriber.", results.get(0), result);
+        }
+
+        // a load left in flight would be joined instead of reading the file again
+        JsonFileManager.INSTANCE.invalidateCaches();
+        assertEquals("The subscriber should be read again.", subscriber,
+                JsonFileManager.INSTANCE.readObject(subscriber.getEmail()));
+        assertEquals("The file should be read again.", 2, this.loads.get());
+    }
+
+    /**
+     * Ensures that a failed load raises the same exception to every waiting reader.
+     */
+    @Test
+    public void shareFailedRead() throws Exception {
+        final List<Object> results = readConcurrently("missing@example.com");
+        assertEquals("A single file should be read.", 1, this.loads.get());
+        assertTrue("The missing file should be raised.", results.get(0) instanceof FileNotFoundException);
+        for (final Object result : results) {
+            assertSame("Every reader should get the same exception.", results.get(0), result);
+        }
+
+        // a failed load left in flight would raise its exception again
+        try {
+            JsonFileManager.INSTANCE.readObject("missing@example.com");
+            fail("The missing file should be raised again.");
+        } catch (final FileNotFoundException e) {
+            assertNotSame("The file should be read again.", results.get(0), e);
+        }
+        assertEquals("The file should be read again.", 2, this.loads.get());
+    }
+
+    /**
+     * Reads an email from {@value #READERS} threads, holding the load of the first one until every other reader
+     * waits for it.
+     *
+     * @param email The email.
+     * @return The subscriber or the exception got by each reader.
+     */
+    private List<Object> readConcurrently(final String email) throws Exception {
+        final Object[] results = new Object[READERS];
+        final Thread[] readers = new Thread[READERS];
+        for (int i = 0; i < READERS; i++) {
+            final int reader = i;
+            readers[i] = new Thread(() -> {
+                try {
+                    results[reader] = JsonFileManager.INSTANCE.readObject(email);
+                } catch (final Exception e) {
+                    results[reader] = e;
+                }
+            });
+        }
+        readers[0].start();
+        assertTrue("The first reader should start loading.", this.loading.await(10, TimeUnit.SECONDS));
+        for (int i = 1; i < READERS; i++) {
+            readers[i].start();
+        }
+        final long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        for (int i = 1; i < READERS; i++) {
+            while (!isWaitingForLoad(readers[i])) {
+                assertTrue("The other readers should wait for the load.", System.nanoTime() < deadline);
+                Thread.sleep(1);
+            }
+        }
+        this.release.countDown();
+        for (final Thread reader : readers) {
+            reader.join(TimeUnit.SECONDS.toMillis(10));
+            assertFalse("Every reader should be done.", reader.isAlive());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Checks whether a reader is parked on the load of another one.
+     *
+     * @param reader The reader.
+     * @return {@code true} if the reader waits for a load, {@code false} otherwise.
+     */
+    private static boolean isWaitingForLoad(final Thread reader) {
+        if (reader.getState() != Thread.State.WAITING) {
+            return false;
+        }
+        for (final StackTraceElement element : reader.getStackTrace()) {
+            if (CompletableFuture.class.getName().equals(element.getClassName())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,175 @@
+package sla.reporter.database.nosql;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests the snapshots and restores of the storage.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class StorageSnapshotTest {
+
+    /**
+     * The storage folder.
+     */
+    private final File storage = new File(System.getProperty("user.dir") + File.separator + "storage");
+
+    /**
+     * Clean storage produced from each test.
+     */
+    @After
+    public void cleanStorage() throws IOException {
+        FileUtils.deleteDirectory(this.storage);
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that a snapshot ignores the writes made after it and can be restored into an empty storage.
+     */
+    @Test
+    public void snapshotAndRestore() throws Exception {
+        for (int i = 0; i < 3; i++) {
+            JsonFileManager.INSTANCE.writeObject(subscriber(i));
+        }
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (final StorageSnapshot snapshot = JsonFileManager.INSTANCE.snapshot()) {
+            JsonFileManager.INSTANCE.writeObject(subscriber(3));
+            assertEquals("The snapshot should hold the previous writes.", 3, snapshot.size());
+            snapshot.writeZip(archive);
+        }
+        assertEquals("The archive should hold the previous writes.", 3, entries(archive.toByteArray()));
+        assertFalse("The staged links should be deleted.",
+                new File(this.storage, ".snapshots").list().length > 0);
+
+        cleanStorage();
+        assertEquals("Every archived subscriber should be restored.", 3,
+                JsonFileManager.INSTANCE.restore(new ByteArrayInputStream(archive.toByteArray())));
+        assertEquals("The restored subscriber should be readable.", subscriber(1),
+                JsonFileManager.INSTANCE.readObject(subscriber(1).getEmail()));
+        try {
+            JsonFileManager.INSTANCE.restore(new ByteArrayInputStream(archive.toByteArray()));
+            fail("A non empty storage should not be restored.");
+        } catch (final IllegalStateException expected) {
+            // expected
+        }
+    }
+
+    /**
+     * Ensures that a restore keeps the write order and the modification times, even within the same second.
+     */
+    @Test
+    public void restoreWriteOrder() throws Exception {
+        final long second = Instant.parse("2020-09-13T12:00:00Z").toEpochMilli();
+        final long[] times = {second + 100, second + 200, second + 300, second + 5_000};
+        for (int i = 0; i < times.length; i++) {
+            JsonFileManager.INSTANCE.writeObject(subscriber(i));
+        }
+        // the first files are written within the same second, the last one a few seconds later
+        for (int i = 0; i < times.length; i++) {
+            assertTrue("The time should be set.", new File(this.storage, subscriber(i).getEmail())
+                    .setLastModified(times[i]));
+        }
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (final StorageSnapshot snapshot = JsonFileManager.INSTANCE.snapshot()) {
+            snapshot.writeZip(archive);
+        }
+
+        cleanStorage();
+        JsonFileManager.INSTANCE.restore(new ByteArrayInputStream(archive.toByteArray()));
+        final List<String> emails = new ArrayList<>();
+        JsonFileManager.INSTANCE.forEachStored(subscriber -> emails.add(subscriber.getEmail()));
+        assertEquals("The write order should be kept.", Arrays.asList(subscriber(0).getEmail(),
+                subscriber(1).getEmail(), subscriber(2).getEmail(), subscriber(3).getEmail()), emails);
+        for (int i = 0; i < 3; i++) {
+            final long restored = new File(this.storage, subscriber(i).getEmail()).lastModified();
+            assertEquals("The time should be kept to the second.", second / 1000, restored / 1000);
+        }
+        assertEquals("The time should be kept.", times[3],
+                new File(this.storage, subscriber(3).getEmail()).lastModified());
+    }
+
+    /**
+     * Ensures that the snapshots left staged by a previous run are deleted.
+     */
+    @Test
+    public void deleteStagedSnapshots() throws IOException {
+        final File staged = new File(this.storage, ".snapshots" + File.separator + "snapshot-1");
+        assertTrue("The staging folder should be created.", staged.mkdirs());
+        assertTrue("The staged link should be created.", new File(staged, "left@example.com").createNewFile());
+        JsonFileManager.INSTANCE.deleteStagedSnapshots();
+        assertFalse("The staged snapshot should be deleted.", staged.exists());
+    }
+
+    /**
+     * Ensures that an entry can't be extracted outside of the storage.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectEscapingEntry() throws IOException {
+        final ByteArrayOutputStream archive = new ByteArrayOutputStream();
+        try (final ZipOutputStream zip = new ZipOutputStream(archive)) {
+            zip.putNextEntry(new ZipEntry("../escaped@example.com"));
+            zip.write('{');
+            zip.closeEntry();
+        }
+        JsonFileManager.INSTANCE.restore(new ByteArrayInputStream(archive.toByteArray()));
+    }
+
+    /**
+     * Creates a subscriber.
+     *
+     * @param index The subscriber index.
+     * @return The subscriber.
+     */
+    private static Subscriber subscriber(final int index) {
+        return new Subscriber.Builder()
+                .email("snapshot" + index + "@example.com")
+                .firstName("Snapshot")
+                .gender(Gender.NONE)
+                .birthDay(LocalDate.of(1990, 1, 1))
+                .consent(true)
+                .newsletterId("snapshot")
+                .build();
+    }
+
+    /**
+     * Counts the entries of an archive.
+     *
+     * @param archive The archive.
+     * @return The number of entries.
+     */
+    private static int entries(final byte[] archive) throws IOException {
+        int entries = 0;
+        try (final ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(archive))) {
+            while (zip.getNextEntry() != null) {
+                entries++;
+            }
+        }
+        return entries;
+    }
+}
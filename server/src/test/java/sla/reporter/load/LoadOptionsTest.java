@@ -0,0 +1,91 @@
+package sla.reporter.load;
+
+import org.junit.Test;
+
+import java.net.URI;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Tests the parsing of {@link LoadOptions}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class LoadOptionsTest {
+
+    /**
+     * Ensures that the defaults apply to the missing options.
+     */
+    @Test
+    public void parseDefaults() {
+        final LoadOptions options = LoadOptions.parse(new String[] {"--seed=42"});
+        assertEquals("The url should default to the local server.", URI.create("http://localhost:8080"),
+                options.getUrl());
+        assertEquals("The mode should default to open loop.", LoadOptions.Mode.OPEN, options.getMode());
+        assertEquals("The rate should default to 100.", 100, options.getRate(), 0);
+        assertEquals("The clients should default to 16.", 16, options.getClients());
+        assertEquals("The reads should weigh 70 by default.", 70, options.getWeight(Operation.READ));
+        assertEquals("The seed should be parsed.", 42, options.getSeed());
+    }
+
+    /**
+     * Ensures that every option is parsed.
+     */
+    @Test
+    public void parseOptions() {
+        final LoadOptions options = LoadOptions.parse(new String[] {
+            "--url=http://server:9090", "--mode=closed", "--rate=0", "--clients=4", "--duration=5", "--warmup=0",
+            "--mix=read:1, write:3", "--max-in-flight=8"
+        });
+        assertEquals("The url should be parsed.", URI.create("http://server:9090"), options.getUrl());
+        assertEquals("The mode should be parsed.", LoadOptions.Mode.CLOSED, options.getMode());
+        assertEquals("The unpaced rate should be parsed.", 0, options.getRate(), 0);
+        assertEquals("The clients should be parsed.", 4, options.getClients());
+        assertEquals("The duration should be parsed.", 5, options.getDurationSeconds());
+        assertEquals("The warmup should be parsed.", 0, options.getWarmupSeconds());
+        assertEquals("The read weight should be parsed.", 1, options.getWeight(Operation.READ));
+        assertEquals("The write weight should be parsed.", 3, options.getWeight(Operation.WRITE));
+        assertEquals("The missing operation should weigh nothing.", 0, options.getWeight(Operation.DUPLICATE));
+        assertEquals("The max in flight should be parsed.", 8, options.getMaxInFlight());
+    }
+
+    /**
+     * Ensures that a misspelled option is rejected instead of running with the default.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnknownOption() {
+        LoadOptions.parse(new String[] {"--clinets=64"});
+    }
+
+    /**
+     * Ensures that a repeated option is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectRepeatedOption() {
+        LoadOptions.parse(new String[] {"--rate=10", "--rate=20"});
+    }
+
+    /**
+     * Ensures that an argument without value is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectMalformedArgument() {
+        LoadOptions.parse(new String[] {"--rate"});
+    }
+
+    /**
+     * Ensures that a mix without weight is rejected.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectEmptyMix() {
+        LoadOptions.parse(new String[] {"--mix=read:0,write:0"});
+    }
+
+    /**
+     * Ensures that an open loop needs a rate.
+     */
+    @Test(expected = IllegalArgumentException.class)
+    public void rejectUnpacedOpenLoop() {
+        LoadOptions.parse(new String[] {"--mode=open", "--rate=0"});
+    }
+}
@@ -0,0 +1,93 @@
+package sla.reporter.load;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the output of {@link LoadReport}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class LoadReportTest {
+
+    /**
+     * Ensures that the response times are charged from the scheduled time and the service times from the sent time.
+     */
+    @Test
+    public void printCorrectedPercentiles() {
+        final LoadReport report = new LoadReport();
+        // sent 900us late, answered 100us later; below 2048us the histograms are exact
+        report.record(Operation.READ, 0, micros(900), micros(1000), false);
+        report.record(Operation.WRITE, 0, 0, micros(500), true);
+        final String output = print(report, true);
+        assertTrue("The read row should be printed.", output.contains("READ: requests=1 throughput=0.1 req/s errors=0"));
+        assertTrue("The write error should be counted.",
+                output.contains("WRITE: requests=1 throughput=0.1 req/s errors=1"));
+        assertTrue("The total should add the operations.",
+                output.contains("TOTAL: requests=2 throughput=0.2 req/s errors=1"));
+        assertTrue("The response time should include the delay.",
+                output.contains("response time (ms) p50=0.500 p90=1.000"));
+        assertTrue("The service time should exclude the delay.",
+                output.contains("service time  (ms) p50=0.100 p90=0.500"));
+        assertFalse("The unused operation should not be printed.", output.contains("DUPLICATE"));
+        assertFalse("Nothing should be dropped.", output.contains("WARNING"));
+    }
+
+    /**
+     * Ensures that dropped requests are reported loudly.
+     */
+    @Test
+    public void warnDroppedRequests() {
+        final LoadReport report = new LoadReport();
+        report.record(Operation.READ, 0, 0, micros(1000), false);
+        report.drop();
+        report.drop();
+        final String output = print(report, true);
+        assertTrue("The drops should be counted.", output.contains("dropped: 2"));
+        assertTrue("The understated percentiles should be warned.",
+                output.contains("WARNING: 2 requests were dropped"));
+    }
+
+    /**
+     * Ensures that uncorrected response times are flagged.
+     */
+    @Test
+    public void noteUncorrectedResponseTimes() {
+        final LoadReport report = new LoadReport();
+        report.record(Operation.READ, 0, 0, micros(1000), false);
+        assertTrue("The uncorrected times should be flagged.",
+                print(report, false).contains("NOT corrected for coordinated omission"));
+    }
+
+    /**
+     * Converts microseconds to nanoseconds.
+     *
+     * @param micros The microseconds.
+     * @return The nanoseconds.
+     */
+    private static long micros(final long micros) {
+        return TimeUnit.MICROSECONDS.toNanos(micros);
+    }
+
+    /**
+     * Prints a report over a measured duration of 10 seconds.
+     *
+     * @param report The report.
+     * @param corrected Whether the response times are corrected.
+     * @return The output.
+     */
+    private static String print(final LoadReport report, final boolean corrected) {
+        final ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (final PrintStream out = new PrintStream(output, true, StandardCharsets.UTF_8)) {
+            report.print(out, 10, corrected);
+        }
+        return new String(output.toByteArray(), StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,73 @@
+package sla.reporter.load;
+
+import org.junit.Test;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the requests drawn by {@link Workload}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class WorkloadTest {
+
+    /**
+     * The number of drawn requests.
+     */
+    private static final int DRAWS = 20_000;
+
+    /**
+     * Ensures that the operations are drawn according to the mix weights.
+     */
+    @Test
+    public void drawOperationMix() {
+        final Workload workload = new Workload(LoadOptions.parse(new String[] {"--mix=read:70,write:25,duplicate:5"}));
+        final Random random = new Random(42);
+        workload.completed(workload.next(random), Operation.WRITE.getExpectedStatus());
+
+        final Map<Operation, Integer> counts = new EnumMap<>(Operation.class);
+        for (int i = 0; i < DRAWS; i++) {
+            counts.merge(workload.next(random).operation, 1, Integer::sum);
+        }
+        assertEquals("The reads should follow their weight.", 0.70, counts.get(Operation.READ) / (double) DRAWS, 0.02);
+        assertEquals("The writes should follow their weight.", 0.25, counts.get(Operation.WRITE) / (double) DRAWS,
+                0.02);
+        assertEquals("The duplicates should follow their weight.", 0.05,
+                counts.get(Operation.DUPLICATE) / (double) DRAWS, 0.01);
+    }
+
+    /**
+     * Ensures that an operation without weight is never drawn.
+     */
+    @Test
+    public void skipUnweightedOperation() {
+        final Workload workload = new Workload(LoadOptions.parse(new String[] {"--mix=read:1,write:1"}));
+        final Random random = new Random(42);
+        workload.completed(workload.next(random), Operation.WRITE.getExpectedStatus());
+        for (int i = 0; i < DRAWS; i++) {
+            assertTrue("The duplicates should not be drawn.", workload.next(random).operation != Operation.DUPLICATE);
+        }
+    }
+
+    /**
+     * Ensures that reads fall back to writes until a subscriber was added.
+     */
+    @Test
+    public void writeBeforeRead() {
+        final Workload workload = new Workload(LoadOptions.parse(new String[] {"--mix=read:1"}));
+        final Random random = new Random(42);
+        final Workload.Request first = workload.next(random);
+        assertEquals("The first request should write.", Operation.WRITE, first.operation);
+        workload.completed(first, Operation.WRITE.getExpectedStatus());
+
+        final Workload.Request read = workload.next(random);
+        assertEquals("The next request should read.", Operation.READ, read.operation);
+        assertEquals("The added subscriber should be read.", first.subscriber, read.subscriber);
+        assertEquals("The read should get the subscriber.", "GET", read.httpRequest.method());
+    }
+}
@@ -0,0 +1,122 @@
+package sla.reporter.model;
+
+import org.json.simple.JSONObject;
+import org.junit.Test;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the validation of {@link Subscriber} payloads.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class SubscriberValidationTest {
+
+    /**
+     * Creates a valid payload.
+     *
+     * @return The payload.
+     */
+    private static JSONObject payload() {
+        final JSONObject payload = new JSONObject();
+        payload.put("email", "jonh@example.com");
+        payload.put("firstName", "Jonh");
+        payload.put("gender", "male");
+        payload.put("birthDay", "2000-02-29");
+        payload.put("consent", "true");
+        payload.put("newsletterId", "newsletter");
+        return payload;
+    }
+
+    /**
+     * Ensures that a boolean consent is accepted as well as its string form.
+     */
+    @Test
+    public void acceptBooleanConsent() {
+        final JSONObject payload = payload();
+        payload.put("consent", false);
+        final Subscriber.Builder builder = new Subscriber.Builder();
+        assertTrue("A boolean consent should be valid.", builder.validate(payload).isValid());
+        final Subscriber subscriber = builder.build();
+        assertFalse("The consent should be parsed.", subscriber.hasConsent());
+        assertEquals("The leap day should be parsed.", LocalDate.of(2000, 2, 29), subscriber.birthDayValue());
+        assertFalse("The subscription time should be optional.", subscriber.optionalSubscribedAt().isPresent());
+    }
+
+    /**
+     * Ensures that the stored subscription time is parsed as an ISO-8601 instant.
+     */
+    @Test
+    public void parseSubscriptionTime() {
+        final JSONObject payload = payload();
+        payload.put("subscribedAt", "2020-09-13T12:26:40.123Z");
+        assertEquals("The instant should be parsed.", Instant.parse("2020-09-13T12:26:40.123Z"),
+                new Subscriber.Builder().fromJsonObject(payload).build().optionalSubscribedAt().get());
+
+        payload.put("subscribedAt", "2020-09-13 12:26");
+        try {
+            new Subscriber.Builder().fromJsonObject(payload);
+        } catch (final ValidationException e) {
+            assertTrue("A malformed stored instant should be rejected.", e.getResult().isRejected("subscribedAt"));
+            return;
+        }
+        throw new AssertionError("The malformed stored instant should be rejected.");
+    }
+
+    /**
+     * Ensures that the subscription time sent by a client is ignored, since the server assigns it.
+     */
+    @Test
+    public void ignoreClientSubscriptionTime() {
+        final JSONObject payload = payload();
+        payload.put("subscribedAt", "2020-09-13 12:26");
+        final Subscriber.Builder builder = new Subscriber.Builder();
+        assertTrue("A malformed client instant should not fail the request.", builder.validate(payload).isValid());
+
+        payload.put("subscribedAt", "2020-09-13T12:26:40.123Z");
+        final Subscriber.Builder otherBuilder = new Subscriber.Builder();
+        assertTrue("A client instant should be valid.", otherBuilder.validate(payload).isValid());
+        assertFalse("The client instant should be ignored.",
+                otherBuilder.build().optionalSubscribedAt().isPresent());
+    }
+
+    /**
+     * Ensures that every invalid field is collected instead of failing on the first one.
+     */
+    @Test
+    public void collectFieldErrors() {
+        final JSONObject payload = payload();
+        payload.put("email", "jonh@example");
+        payload.remove("firstName");
+        payload.put("birthDay", "2001-02-29");
+        payload.put("consent", "maybe");
+        payload.put("newsletterId", 42L);
+        final ValidationResult result = new Subscriber.Builder().validate(payload);
+        assertEquals("Every invalid field should be rejected.", 5, result.size());
+        assertEquals("The email should be rejected first.", "email", result.getField(0));
+        assertEquals("The message should name the field.", "FirstName can't be null", result.getMessage(1));
+        assertTrue("The malformed date should be rejected.", result.isRejected("birthDay"));
+        assertTrue("The unknown consent should be rejected.", result.isRejected("consent"));
+        assertTrue("The number should be rejected.", result.isRejected("newsletterId"));
+    }
+
+    /**
+     * Ensures that building an invalid subscriber throws its field errors.
+     */
+    @Test
+    public void throwFieldErrors() {
+        try {
+            new Subscriber.Builder().fromJsonObject(null);
+        } catch (final ValidationException e) {
+            assertEquals("The body should be rejected.", "body", e.getResult().getField(0));
+            assertEquals("The exception should have no stack trace.", 0, e.getStackTrace().length);
+            return;
+        }
+        throw new AssertionError("The null payload should be rejected.");
+    }
+}
@@ -0,0 +1,173 @@
+package sla.reporter.model;
+
+import com.google.common.base.Optional;
+import org.json.simple.JSONObject;
+import sla.reporter.api.validation.ValidationExceptionMapper;
+import sla.reporter.utils.RegexUtils;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Benchmark of the cost of rejecting an invalid subscriber payload.
+ *
+ * <p>The legacy path replays the previous parsing, which threw a Guava, cast or date parsing exception answered as a
+ * 500 with its stack trace logged. The other paths are the collecting validation used by the resource and the
+ * stackless {@link ValidationException} answered by the {@link ValidationExceptionMapper}. Every path runs below a deep
+ * stack, as a Jersey request does. Run it from the test classpath, e.g.
+ * {@code mvn test-compile exec:java -Dexec.classpathScope=test
+ * -Dexec.mainClass=sla.reporter.model.ValidationBenchmark}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public final class ValidationBenchmark {
+
+    /**
+     * The depth of the stack the payloads are rejected from.
+     */
+    private static final int STACK_DEPTH = 120;
+    /**
+     * The number of rejected payloads per measure.
+     */
+    private static final int ITERATIONS = 200_000;
+    /**
+     * The number of warmup measures.
+     */
+    private static final int WARMUP = 3;
+
+    /**
+     * The stream discarding the logged stack traces.
+     */
+    private static final PrintStream DISCARD = new PrintStream(OutputStream.nullOutputStream());
+
+    /**
+     * The date formatter of the legacy parsing.
+     */
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
+    /**
+     * Sink preventing the rejections from being optimized away.
+     */
+    private static int sink;
+
+    /**
+     * Private constructor.
+     */
+    private ValidationBenchmark() {}
+
+    /**
+     * Method called from the operating system.
+     */
+    public static void main(final String[] args) {
+        final JSONObject[] payloads = payloads();
+        final ValidationExceptionMapper mapper = new ValidationExceptionMapper();
+        for (int i = 0; i <= WARMUP; i++) {
+            final boolean print = i == WARMUP;
+            measure("legacy exceptions", payloads, ValidationBenchmark::legacy, print);
+            measure("stackless exception", payloads, payload -> {
+                try {
+                    new Subscriber.Builder().fromJsonObject(payload).build();
+                } catch (final ValidationException e) {
+                    sink += mapper.toResponse(e).getStatus();
+                }
+            }, print);
+            measure("collected result", payloads, payload -> {
+                final ValidationResult result = new Subscriber.Builder().validate(payload);
+                sink += result.isValid() ? 0 : result.toJsonObject().size();
+            }, print);
+        }
+        System.out.println("sink=" + sink);
+    }
+
+    /**
+     * Measures a rejection path and prints its cost.
+     *
+     * @param name The name of the path.
+     * @param payloads The invalid payloads.
+     * @param path The rejection path.
+     * @param print Whether the cost is printed.
+     */
+    private static void measure(final String name, final JSONObject[] payloads, final Consumer<JSONObject> path,
+                                final boolean print) {
+        final long begin = System.nanoTime();
+        atDepth(STACK_DEPTH, () -> {
+            for (int i = 0; i < ITERATIONS; i++) {
+                path.accept(payloads[i % payloads.length]);
+            }
+        });
+        final long nanos = System.nanoTime() - begin;
+        if (print) {
+            System.out.printf("%-20s %8.0f ns/invalid request%n", name, (double) nanos / ITERATIONS);
+        }
+    }
+
+    /**
+     * Runs a task below the given number of frames.
+     *
+     * @param depth The number of frames.
+     * @param task The task.
+     */
+    private static void atDepth(final int depth, final Runnable task) {
+        if (depth == 0) {
+            task.run();
+        } else {
+            atDepth(depth - 1, task);
+        }
+    }
+
+    /**
+     * Rejects a payload as the previous parsing did, logging the stack trace of the 500.
+     *
+     * @param payload The invalid payload.
+     */
+    private static void legacy(final JSONObject payload) {
+        try {
+            checkNotNull(payload.get("email"), "Email can't be null");
+            checkNotNull(payload.get("firstName"), "Birthday can't be null");
+            checkNotNull(payload.get("gender"), "Birthday can't be null");
+            checkNotNull(payload.get("birthDay"), "Birthday can't be null");
+            checkNotNull(payload.get("consent"), "Birthday can't be null");
+            checkNotNull(payload.get("newsletterId"), "NewsletterId can't be null");
+            final String email = (String) payload.get("email");
+            final Optional<String> firstName = Optional.of((String) payload.get("firstName"));
+            final Gender gender = Gender.fromString((String) payload.get("gender")).or(Gender.NONE);
+            final LocalDate birthDay = LocalDate.parse((String) payload.get("birthDay"), FORMATTER);
+            final boolean consent = Boolean.parseBoolean((String) payload.get("consent"));
+            checkArgument(RegexUtils.isEmailValid(email), "Email is not valid");
+            sink += firstName.hashCode() + gender.hashCode() + birthDay.hashCode() + (consent ? 1 : 0);
+        } catch (final RuntimeException e) {
+            e.printStackTrace(DISCARD);
+            sink++;
+        }
+    }
+
+    /**
+     * Creates the invalid payloads: a missing email, a boolean consent and a malformed birthday.
+     *
+     * @return The invalid payloads.
+     */
+    private static JSONObject[] payloads() {
+        final JSONObject[] payloads = new JSONObject[3];
+        for (int i = 0; i < payloads.length; i++) {
+            payloads[i] = new JSONObject();
+            payloads[i].put("email", "jonh@example.com");
+            payloads[i].put("firstName", "Jonh");
+            payloads[i].put("gender", "male");
+            payloads[i].put("birthDay", "2000-12-25");
+            payloads[i].put("consent", "true");
+            payloads[i].put("newsletterId", "newsletter");
+        }
+        payloads[0].remove("email");
+        payloads[1].put("consent", true);
+        payloads[2].put("birthDay", "25/12/2000");
+        // a valid payload with a boolean consent used to fail, so the new paths also reject an invalid email
+        payloads[1].put("email", "jonh@example");
+        return payloads;
+    }
+}
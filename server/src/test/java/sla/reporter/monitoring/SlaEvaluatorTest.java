@@ -0,0 +1,130 @@
+package sla.reporter.monitoring;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the sliding-window evaluation of {@link SloDefinition service level objectives}.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class SlaEvaluatorTest {
+
+    /**
+     * The endpoint used for test purpose.
+     */
+    private static final String ENDPOINT = "POST /api/subscription";
+
+    /**
+     * The fake clock in milliseconds.
+     */
+    private final AtomicLong clock = new AtomicLong(1_000_000_000L);
+
+    @Before
+    public void registerObjective() {
+        // objectives registered by other test classes of the same JVM must not be evaluated
+        SlaEvaluator.INSTANCE.clear();
+        SlaEvaluator.INSTANCE.setClock(this.clock::get);
+        SlaEvaluator.INSTANCE.register(new SloDefinition.Builder()
+                .endpoint(ENDPOINT)
+                .latencyThresholdMillis(100)
+                .latencyObjective(0.9)
+                .availabilityObjective(0.9)
+                .windowSeconds(10)
+                .build());
+    }
+
+    @After
+    public void clearObjectives() {
+        SlaEvaluator.INSTANCE.clear();
+        SlaEvaluator.INSTANCE.setClock(System::currentTimeMillis);
+    }
+
+    /**
+     * Ensures that burn rate and error budget are computed from the requests of the window.
+     */
+    @Test
+    public void evaluateBurnRate() {
+        for (int i = 0; i < 95; i++) {
+            SlaEvaluator.INSTANCE.record(ENDPOINT, 10, false);
+        }
+        for (int i = 0; i < 5; i++) {
+            SlaEvaluator.INSTANCE.record(ENDPOINT, 500, true);
+        }
+        final SlaReport report = single(SlaEvaluator.INSTANCE.evaluate());
+        assertEquals("There should be 100 requests.", 100, report.getRequests());
+        assertEquals("There should be 5 errors.", 5, report.getErrors());
+        assertEquals("Half of the availability budget should be burnt.", 0.5, report.getAvailabilityBurnRate(), 1e-9);
+        assertEquals("Half of the latency budget should remain.", 0.5, report.getLatencyErrorBudgetRemaining(), 1e-9);
+        assertTrue("The endpoint should be compliant.", report.isCompliant());
+    }
+
+    /**
+     * Ensures that requests older than the window are no longer evaluated.
+     */
+    @Test
+    public void expireOldBuckets() {
+        for (int i = 0; i < 10; i++) {
+            SlaEvaluator.INSTANCE.record(ENDPOINT, 500, true);
+        }
+        assertFalse("The endpoint should not be compliant.", single(SlaEvaluator.INSTANCE.evaluate()).isCompliant());
+
+        this.clock.addAndGet(10_000);
+        SlaEvaluator.INSTANCE.record(ENDPOINT, 10, false);
+        final SlaReport report = single(SlaEvaluator.INSTANCE.evaluate());
+        assertEquals("Only the latest request should be evaluated.", 1, report.getRequests());
+        assertTrue("The endpoint should be compliant again.", report.isCompliant());
+    }
+
+    /**
+     * Ensures that requests of endpoints without objective are ignored.
+     */
+    @Test
+    public void ignoreUnknownEndpoint() {
+        SlaEvaluator.INSTANCE.record("GET /api/health", 10, true);
+        assertEquals("There should be no request.", 0, single(SlaEvaluator.INSTANCE.evaluate()).getRequests());
+    }
+
+    /**
+     * Ensures that an unregistered objective is neither recorded nor evaluated.
+     */
+    @Test
+    public void unregisterObjective() {
+        SlaEvaluator.INSTANCE.unregister(ENDPOINT);
+        SlaEvaluator.INSTANCE.record(ENDPOINT, 10, false);
+        assertTrue("There should be no report.", SlaEvaluator.INSTANCE.evaluate().isEmpty());
+    }
+
+    /**
+     * Ensures that the latency at the objective quantile is estimated from the histogram.
+     */
+    @Test
+    public void estimateLatencyAtObjective() {
+        for (int i = 0; i < 90; i++) {
+            SlaEvaluator.INSTANCE.record(ENDPOINT, 3, false);
+        }
+        for (int i = 0; i < 10; i++) {
+            SlaEvaluator.INSTANCE.record(ENDPOINT, 300, false);
+        }
+        assertEquals("The p90 should be in the 4ms bin.", 4, single(SlaEvaluator.INSTANCE.evaluate()).getLatencyAtObjectiveMillis());
+    }
+
+    /**
+     * Gets the single report of the given list.
+     *
+     * @param reports The reports.
+     * @return The single report.
+     */
+    private static SlaReport single(final List<SlaReport> reports) {
+        assertEquals("There should be a single report.", 1, reports.size());
+        return reports.get(0);
+    }
+}
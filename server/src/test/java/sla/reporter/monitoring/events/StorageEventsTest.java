@@ -0,0 +1,104 @@
+package sla.reporter.monitoring.events;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Test;
+import sla.reporter.database.index.AudienceIndex;
+import sla.reporter.database.index.TimeBucketIndex;
+import sla.reporter.database.nosql.JsonFileManager;
+import sla.reporter.model.Gender;
+import sla.reporter.model.Subscriber;
+
+import java.io.File;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests that the storage emits its flight recorder events under the service profile.
+ *
+ * @author Sheng Wang (shenggwangg@gmail.com)
+ */
+public class StorageEventsTest {
+
+    /**
+     * The email of the subscriber written and read.
+     */
+    private static final String EMAIL = "recorded@example.com";
+
+    /**
+     * Clean storage produced from each test.
+     */
+    @After
+    public void cleanStorage() throws Exception {
+        FileUtils.deleteDirectory(new File(System.getProperty("user.dir") + File.separator + "storage"));
+        JsonFileManager.INSTANCE.reload();
+        AudienceIndex.INSTANCE.clear();
+        TimeBucketIndex.INSTANCE.clear();
+    }
+
+    /**
+     * Ensures that writing then reading a cold subscriber records the storage events.
+     */
+    @Test
+    public void recordStorageEvents() throws Exception {
+        final Configuration configuration;
+        try (final Reader reader = new InputStreamReader(
+                StorageEventsTest.class.getResourceAsStream("/sla-reporter.jfc"), StandardCharsets.UTF_8)) {
+            configuration = Configuration.create(reader);
+        }
+        final Path dump = Files.createTempFile("storage-events", ".jfr");
+        try (final Recording recording = new Recording(configuration)) {
+            for (final String name : new String[] {"sla.reporter.CacheLookup", "sla.reporter.FileOpen",
+                    "sla.reporter.FileParse", "sla.reporter.FileWrite", "sla.reporter.StorageLockWait"}) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            JsonFileManager.INSTANCE.writeObject(new Subscriber.Builder()
+                    .email(EMAIL)
+                    .gender(Gender.NONE)
+                    .birthDay(LocalDate.of(1990, 1, 1))
+                    .consent(true)
+                    .newsletterId("recorded")
+                    .build());
+            JsonFileManager.INSTANCE.invalidateCaches();
+            JsonFileManager.INSTANCE.readObject(EMAIL);
+            recording.stop();
+            recording.dump(dump);
+
+            final List<RecordedEvent> events = RecordingFile.readAllEvents(dump);
+            final Map<String, Integer> counts = new HashMap<>();
+            for (final RecordedEvent event : events) {
+                if (event.getEventType().getName().startsWith("sla.reporter.")) {
+                    counts.merge(event.getEventType().getName(), 1, Integer::sum);
+                    assertEquals("The email should be hashed.", SubscriberEvent.hash(EMAIL),
+                            event.getLong("emailHash"));
+                    assertNull("The size should not be shown as a byte amount.",
+                            event.getEventType().getField("size").getContentType());
+                }
+            }
+            assertEquals("Both cache tiers should miss.", Integer.valueOf(2), counts.get("sla.reporter.CacheLookup"));
+            assertEquals("The file should be opened.", Integer.valueOf(1), counts.get("sla.reporter.FileOpen"));
+            assertEquals("The file should be parsed.", Integer.valueOf(1), counts.get("sla.reporter.FileParse"));
+            assertEquals("The file should be written.", Integer.valueOf(1), counts.get("sla.reporter.FileWrite"));
+            assertTrue("The lock wait should be recorded.", counts.containsKey("sla.reporter.StorageLockWait"));
+        } finally {
+            Files.delete(dump);
+        }
+    }
+}